@@ -0,0 +1,162 @@
+package offlinechess.bench;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import offlinechess.ChessBoard;
+import offlinechess.Engine;
+import offlinechess.TranspositionTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks how many nodes, and how long, the search takes to reach a
+ * fixed depth with the moves in the order they are generated and with
+ * the staged move picker (MVV-LVA, killer moves and history).<br>
+ * Each search starts from an empty transposition table; the hash move is
+ * tried first either way. The node count is the "nodes" counter; main
+ * prints how much the picker saves
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OrderingBenchmark {
+
+    /**
+     * Which fixed position to run on (See: <code>Positions</code>)
+     */
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    /**
+     * How the moves are ordered: generation or staged
+     */
+    @Param({"generation", "staged"})
+    public String ordering;
+
+    /**
+     * The depth to search to
+     */
+    @Param({"5"})
+    public int depth;
+
+    /**
+     * The position
+     */
+    private ChessBoard cb;
+
+    /**
+     * The table the search uses
+     */
+    private TranspositionTable table;
+
+    /**
+     * The engine
+     */
+    private Engine engine;
+
+    /**
+     * Counts the nodes searched
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+
+        /**
+         * How many nodes were searched
+         */
+        public long nodes;
+    }
+
+    /**
+     * Sets up the position and the engine
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        cb = Positions.create(position);
+        table = new TranspositionTable(64);
+        engine = new Engine(table);
+        switch(ordering) {
+            case "generation":
+                engine.setMoveOrdering(false);
+                break;
+            case "staged":
+                engine.setMoveOrdering(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown ordering " + ordering);
+        }
+    }
+
+    /**
+     * Empties the table and the history, so no search is helped by the one before it
+     */
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+        engine.clearHistory();
+    }
+
+    @Benchmark
+    public int nodesToDepth(Nodes counter) {
+        int move = engine.search(cb, depth, 0);
+        counter.nodes += engine.getNodes();
+        return move;
+    }
+
+    /**
+     * Runs the benchmark and prints how many fewer nodes
+     * the staged move picker searches.<br>
+     * Takes the same options as the benchmarks jar, such as
+     * <code>-p depth=6</code>
+     * @param args the command line arguments
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if the options are not valid
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(OrderingBenchmark.class.getSimpleName())
+                .build()).run();
+        // the node counts and times by position, then by ordering
+        Map<String, Map<String, double[]>> runs = new TreeMap<>();
+        for(RunResult result : results) {
+            runs.computeIfAbsent(result.getParams().getParam("position"), k -> new TreeMap<>())
+                    .put(result.getParams().getParam("ordering"), new double[]{
+                        result.getSecondaryResults().get("nodes").getScore(),
+                        result.getPrimaryResult().getScore()
+                    });
+        }
+        System.out.println();
+        System.out.println("Nodes to depth, generation order against staged picker:");
+        for(Map.Entry<String, Map<String, double[]>> entry : runs.entrySet()) {
+            double[] generation = entry.getValue().get("generation"), staged = entry.getValue().get("staged");
+            if(generation == null || staged == null) continue;
+            System.out.printf("%-10s %12.0f -> %10.0f nodes (%5.1f%% fewer), %9.1f -> %7.1f ms%n",
+                    entry.getKey(), generation[0], staged[0], 100 * (1 - staged[0] / generation[0]),
+                    generation[1], staged[1]);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package offlinechess.bench;
+
+import java.util.concurrent.TimeUnit;
+import offlinechess.Bitboard;
+import offlinechess.ChessBoard;
+import offlinechess.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks AbstractPiece.legalMoves for every piece of one type 
+ * of the side to move
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+
+    /**
+     * Which fixed position to run on (See: <code>Positions</code>)
+     */
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    /**
+     * Which piece, determined by the number (See: <code>MoveRecorder</code>)
+     */
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int piece;
+
+    /**
+     * The position
+     */
+    private ChessBoard cb;
+
+    /**
+     * The squares of the pieces to generate for
+     */
+    private int[] squares;
+
+    /**
+     * The buffer the moves are written into
+     */
+    private final int[] moves = new int[Move.MAX_MOVES];
+
+    /**
+     * Sets up the position
+     */
+    @Setup
+    public void setup() {
+        cb = Positions.create(position);
+        long pieces = cb.getBitboard(piece, cb.getCurrentPlayer());
+        squares = new int[Bitboard.count(pieces)];
+        for(int i = 0; i < squares.length; i++) {
+            squares[i] = Bitboard.first(pieces);
+            pieces &= pieces - 1;
+        }
+    }
+
+    @Benchmark
+    public int legalMoves() {
+        int count = 0;
+        for(int square : squares) {
+            count = cb.getPiece(square).legalMoves(cb, square, moves, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+package offlinechess.bench;
+
+import offlinechess.ChessBoard;
+
+/**
+ * The fixed positions the benchmarks run on, in Forsyth-Edwards Notation
+ * @author Jed Wang
+ */
+public final class Positions {
+
+    /**
+     * The Ruy Lopez, after 5. O-O Be7
+     */
+    public static final String OPENING =
+            "r1bqk2r/1pppbppp/p1n2n2/4p3/B3P3/5N2/PPPP1PPP/RNBQ1RK1 w kq - 4 6";
+
+    /**
+     * Morphy's Opera Game, after 12. O-O-O Rd8
+     */
+    public static final String MIDDLEGAME =
+            "3rkb1r/p2nqppp/5n2/1B2p1B1/4P3/1Q6/PPP2PPP/2KR3R w k - 3 13";
+
+    /**
+     * A rook and bishop against rook ending with pawns on both sides
+     */
+    public static final String ENDGAME =
+            "8/p6p/6k1/B7/5P2/P3K3/2r5/7R w - - 0 26";
+
+    /**
+     * No instantiation.
+     */
+    private Positions() {}
+
+    /**
+     * Creates a board with one of the fixed positions on it
+     * @param name opening, middlegame or endgame
+     * @return a board with the position on it
+     */
+    public static ChessBoard create(String name) {
+        switch(name) {
+            case "opening":
+                return new ChessBoard(OPENING);
+            case "middlegame":
+                return new ChessBoard(MIDDLEGAME);
+            case "endgame":
+                return new ChessBoard(ENDGAME);
+            default:
+                throw new IllegalArgumentException("Unknown position " + name);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package offlinechess.bench;
+
+import java.util.concurrent.TimeUnit;
+import offlinechess.Bitboard;
+import offlinechess.ChessBoard;
+import offlinechess.Move;
+import offlinechess.MoveGenerator;
+import offlinechess.MoveRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the board-wide rules: move lists, check, mate, draws and notation
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    /**
+     * Which fixed position to run on (See: <code>Positions</code>)
+     */
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    /**
+     * The position
+     */
+    private ChessBoard cb;
+
+    /**
+     * The position in FEN
+     */
+    private String fen;
+
+    /**
+     * The position after the first legal move, for MoveRecorder
+     */
+    private ChessBoard after;
+
+    /**
+     * The legal moves in the position
+     */
+    private int[] moves;
+
+    /**
+     * How many legal moves there are
+     */
+    private int count;
+
+    /**
+     * The squares of the side to move's pieces
+     */
+    private String[] squares;
+
+    /**
+     * Sets up the position
+     */
+    @Setup
+    public void setup() {
+        cb = Positions.create(position);
+        fen = cb.toFEN();
+        long pieces = cb.getOccupied(cb.getCurrentPlayer());
+        squares = new String[Bitboard.count(pieces)];
+        for(int i = 0; i < squares.length; i++) {
+            squares[i] = Bitboard.toSquare(Bitboard.first(pieces));
+            pieces &= pieces - 1;
+        }
+        moves = new int[Move.MAX_MOVES];
+        count = MoveGenerator.legalMoves(cb, cb.getCurrentPlayer(), moves, 0);
+        after = new ChessBoard(cb);
+        after.makeMove(moves[0]);
+        after.recalculateMoves();
+    }
+
+    // the moves are only generated when they are asked for, so every piece's are
+    @Benchmark
+    public void recalculateMoves(Blackhole bh) {
+        cb.recalculateMoves();
+        for(String square : squares) {
+            bh.consume(cb.getLegalMoves(square));
+        }
+    }
+
+    // Position.inCheck and checkMated remember their answers for the position,
+    // so these run what they would compute instead of timing the lookup
+    @Benchmark
+    public boolean inCheck() {
+        boolean isWhite = cb.getCurrentPlayer();
+        return cb.isSquareAttacked(cb.getKingSquare(isWhite), !isWhite);
+    }
+
+    @Benchmark
+    public boolean checkMated() {
+        boolean isWhite = cb.getCurrentPlayer();
+        return cb.isSquareAttacked(cb.getKingSquare(isWhite), !isWhite) 
+                && !MoveGenerator.hasLegalMove(cb, isWhite);
+    }
+
+    @Benchmark
+    public boolean insufficientMaterial() {
+        return cb.insufficientMaterial();
+    }
+
+    @Benchmark
+    public String toFEN() {
+        return cb.toFEN();
+    }
+
+    @Benchmark
+    public ChessBoard parseFEN() {
+        cb.setFEN(fen);
+        return cb;
+    }
+
+    @Benchmark
+    public MoveRecorder moved() {
+        MoveRecorder mr = new MoveRecorder();
+        mr.moved(after, MoveRecorder.toSAN(cb, moves[0], moves, count));
+        return mr;
+    }
+}
@@ -0,0 +1,149 @@
+package offlinechess.bench;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import offlinechess.ChessBoard;
+import offlinechess.Engine;
+import offlinechess.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks how long the search takes to reach a fixed depth
+ * on one thread and on several (Lazy SMP).<br>
+ * Each search starts from an empty transposition table. The speedup is
+ * the time on one thread over the time on several; main prints it
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    /**
+     * Which fixed position to run on (See: <code>Positions</code>)
+     */
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    /**
+     * How many threads to search on.<br>
+     * On a bigger machine, run with e.g. <code>-p threads=1,8,32</code>
+     */
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    /**
+     * The depth to search to
+     */
+    @Param({"7"})
+    public int depth;
+
+    /**
+     * How big the transposition table is, in megabytes
+     */
+    @Param({"64"})
+    public int hashMB;
+
+    /**
+     * The position
+     */
+    private ChessBoard cb;
+
+    /**
+     * The table the threads share
+     */
+    private TranspositionTable table;
+
+    /**
+     * The engine
+     */
+    private Engine engine;
+
+    /**
+     * Sets up the position and the engine
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        cb = Positions.create(position);
+        table = new TranspositionTable(hashMB);
+        engine = new Engine(table, threads);
+    }
+
+    /**
+     * Empties the table and the history, so no search is helped by the one before it
+     */
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+        engine.clearHistory();
+    }
+
+    /**
+     * Lets the engine's threads end
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public int timeToDepth() {
+        return engine.search(cb, depth, 0);
+    }
+
+    /**
+     * Runs the benchmark and prints the speedup of each thread count
+     * over one thread.<br>
+     * Takes the same options as the benchmarks jar, such as
+     * <code>-p threads=1,8,32</code>
+     * @param args the command line arguments
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if the options are not valid
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SearchBenchmark.class.getSimpleName())
+                .build()).run();
+        // the times by position, then by thread count
+        Map<String, Map<Integer, Double>> times = new TreeMap<>();
+        for(RunResult result : results) {
+            String name = result.getParams().getParam("position");
+            int count = Integer.parseInt(result.getParams().getParam("threads"));
+            times.computeIfAbsent(name, k -> new TreeMap<>())
+                    .put(count, result.getPrimaryResult().getScore());
+        }
+        System.out.println();
+        System.out.println("Time-to-depth speedup over 1 thread:");
+        for(Map.Entry<String, Map<Integer, Double>> entry : times.entrySet()) {
+            Double single = entry.getValue().get(1);
+            for(Map.Entry<Integer, Double> time : entry.getValue().entrySet()) {
+                System.out.printf("%-10s %3d threads %9.1f ms %s%n", entry.getKey(), time.getKey(),
+                        time.getValue(), (single == null)?"":String.format("%5.2fx", single / time.getValue()));
+            }
+        }
+    }
+}
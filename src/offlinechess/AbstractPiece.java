@@ -18,14 +18,36 @@ public abstract class AbstractPiece {
      */
     protected final boolean isWhite;
     
+    /**
+     * The one piece of each type and color, indexed by <code>Bitboard.pieceIndex</code>
+     */
+    private static final AbstractPiece[] PIECES = {
+        new Pawn(true), new Knight(true), new Bishop(true), 
+        new Rook(true), new Queen(true), new King(true), 
+        new Pawn(false), new Knight(false), new Bishop(false), 
+        new Rook(false), new Queen(false), new King(false)
+    };
+    
     /**
      * Creates a new AbstractPiece
      * @param isWhite whether or not the piece is white
      */
-    public AbstractPiece(boolean isWhite) {
+    AbstractPiece(boolean isWhite) {
         this.isWhite = isWhite;
     }
     
+    /**
+     * Returns a piece.<br>
+     * Pieces hold no state besides their type and color, so there is only 
+     * one of each, shared by every board
+     * @param whichPiece which piece, determined by the number (See: <code>MoveRecorder</code>)
+     * @param isWhite whether the piece is white
+     * @return the piece
+     */
+    public static AbstractPiece of(int whichPiece, boolean isWhite) {
+        return PIECES[Bitboard.pieceIndex(whichPiece, isWhite)];
+    }
+    
     /**
      * Determines whether a move is legal
      * @param cb the current state of the chess game
@@ -33,8 +55,22 @@ public abstract class AbstractPiece {
      * @param toWhere to where the piece would be moved
      * @return whether the move would be legal
      */
-    public boolean isLegalMove(ChessBoard cb, String fromWhere, String toWhere) {
-        return legalMoves(cb, fromWhere).contains(toWhere);
+    public boolean isLegalMove(Position cb, String fromWhere, String toWhere) {
+        checkSquare(cb, fromWhere);
+        return isLegalMove(cb, Bitboard.toIndex(fromWhere), Bitboard.toIndex(toWhere));
+    }
+    
+    /**
+     * Determines whether a move is legal
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param to the index of the square the piece would be moved to
+     * @return whether the move would be legal
+     */
+    public boolean isLegalMove(Position cb, int from, int to) {
+        int[] moves = new int[Move.MAX_PIECE_MOVES];
+        int count = legalMoves(cb, from, moves, 0);
+        return containsTarget(moves, count, to);
     }
     
     /**
@@ -43,7 +79,23 @@ public abstract class AbstractPiece {
      * @param currentPosition the current place of the piece
      * @return all legal moves
      */
-    public abstract LinkedList<String> allLegalMoves(ChessBoard cb, String currentPosition);
+    public LinkedList<String> allLegalMoves(Position cb, String currentPosition) {
+        checkSquare(cb, currentPosition);
+        int[] moves = new int[Move.MAX_PIECE_MOVES];
+        int count = allLegalMoves(cb, Bitboard.toIndex(currentPosition), moves, 0);
+        return Move.toSquares(moves, 0, count);
+    }
+    
+    /**
+     * Writes all of the legal moves this piece could make into a buffer<br>
+     * However, this method does not check for checks
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public abstract int allLegalMoves(Position cb, int from, int[] moves, int count);
     
     /**
       * Determines whether a move is legal <br>
@@ -53,8 +105,23 @@ public abstract class AbstractPiece {
       * @param toWhere
       * @return 
       */
-    public boolean isAllLegalMove(ChessBoard cb, String fromWhere, String toWhere) {
-        return allLegalMoves(cb, fromWhere).contains(toWhere);
+    public boolean isAllLegalMove(Position cb, String fromWhere, String toWhere) {
+        checkSquare(cb, fromWhere);
+        return isAllLegalMove(cb, Bitboard.toIndex(fromWhere), Bitboard.toIndex(toWhere));
+    }
+    
+    /**
+     * Determines whether a move is legal <br>
+     * However, this method does not check for checks
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param to the index of the square the piece would be moved to
+     * @return whether the move would be legal
+     */
+    public boolean isAllLegalMove(Position cb, int from, int to) {
+        int[] moves = new int[Move.MAX_PIECE_MOVES];
+        int count = allLegalMoves(cb, from, moves, 0);
+        return containsTarget(moves, count, to);
     }
     
     /**
@@ -63,26 +130,24 @@ public abstract class AbstractPiece {
      * @param currentPosition the current place of the piece
      * @return the legal moves this piece can make
      */
-    public LinkedList<String> legalMoves(ChessBoard cb, String currentPosition) {
-        LinkedList<String> allLegal = allLegalMoves(cb, currentPosition);
-        LinkedList<String> output = new LinkedList<>();
-        AbstractPiece[][] initLayout = new AbstractPiece[cb.getBoard().length][cb.getBoard()[0].length];
-        for(int i = 0; i < cb.getBoard().length; i++) {
-            for(int j = 0; j < cb.getBoard()[i].length; j++) {
-                initLayout[i][j] = cb.getBoard()[i][j];
-            }
-        }
-        for(String square:allLegal) {
-            cb.maybeMove(currentPosition, square);
-            if(getCharRepresentation().equals("P") && 
-                    (ChessBoard.getRow(square) == 0 
-                    || ChessBoard.getRow(square) == 7)) 
-                cb.placePiece(new Queen(isWhite), square);
-            if(!cb.inCheck(isWhite)) output.add(square);
-            cb.setBoard(initLayout);
-            if(getCharRepresentation().equals("K")) cb.resetKingPos(isWhite);
-        }
-        return output;
+    public LinkedList<String> legalMoves(Position cb, String currentPosition) {
+        checkSquare(cb, currentPosition);
+        int[] moves = new int[Move.MAX_PIECE_MOVES];
+        int count = legalMoves(cb, Bitboard.toIndex(currentPosition), moves, 0);
+        return Move.toSquares(moves, 0, count);
+    }
+    
+    /**
+     * Writes all of the legal moves this piece could make into a buffer, 
+     * taking into account check
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public int legalMoves(Position cb, int from, int[] moves, int count) {
+        return MoveGenerator.legalMoves(cb, isWhite, Bitboard.bit(from), moves, count);
     }
     
     /**
@@ -91,7 +156,70 @@ public abstract class AbstractPiece {
      * @param currentPosition the current place of the piece
      * @return all legal captures
      */
-    public abstract LinkedList<String> legalCaptures(ChessBoard cb, String currentPosition);
+    public LinkedList<String> legalCaptures(Position cb, String currentPosition) {
+        checkSquare(cb, currentPosition);
+        int[] moves = new int[Move.MAX_PIECE_MOVES];
+        int count = legalCaptures(cb, Bitboard.toIndex(currentPosition), moves, 0);
+        return Move.toSquares(moves, 0, count);
+    }
+    
+    /**
+     * Writes all of the legal captures this piece could make into a buffer
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public int legalCaptures(Position cb, int from, int[] moves, int count) {
+        return allLegalMoves(cb, from, moves, count);
+    }
+    
+    /**
+     * Writes a move to every target square into a buffer, 
+     * flagging the ones that capture
+     * @param cb the current state of the chess game
+     * @param from the index of the square the piece is on
+     * @param targets the squares to move to
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    protected static int addMoves(Position cb, int from, long targets, int[] moves, int count) {
+        long occupied = cb.getOccupied();
+        while(targets != 0) {
+            int to = Bitboard.first(targets);
+            targets &= targets - 1;
+            moves[count++] = Move.create(from, to, 
+                    Bitboard.contains(occupied, to)?Move.CAPTURE:0);
+        }
+        return count;
+    }
+    
+    /**
+     * Determines whether any move in a buffer goes to a square
+     * @param moves the moves
+     * @param count how many moves are in the buffer
+     * @param to the index of the square
+     * @return whether a move goes to that square
+     */
+    private static boolean containsTarget(int[] moves, int count, int to) {
+        for(int i = 0; i < count; i++) {
+            if(Move.getTo(moves[i]) == to) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Makes sure this piece is on a square
+     * @param cb the current state of the chess game
+     * @param square the square the piece should be on
+     */
+    private void checkSquare(Position cb, String square) {
+        if(!Position.isValidSquare(square)) throw new IllegalArgumentException("Invalid square");
+        if(cb.getPiece(square) == null || cb.getPiece(square).getType() != getType()) 
+            throw new IllegalArgumentException("This isn\'t a " + getClass().getSimpleName().toLowerCase() + "!");
+    }
     
     /**
      * The ghostifier
@@ -185,4 +313,10 @@ public abstract class AbstractPiece {
      * @return the character that represents this piece
      */
     public abstract String getCharRepresentation();
+    
+    /**
+     * Returns the number that represents this piece (See: <code>MoveRecorder</code>)
+     * @return the number that represents this piece
+     */
+    public abstract int getType();
 }
\ No newline at end of file
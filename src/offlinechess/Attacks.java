@@ -0,0 +1,348 @@
+package offlinechess;
+
+/**
+ * Precomputed attack tables.<br>
+ * <br>
+ * The knight, king and pawn attack one fixed set of squares from each square,
+ * so their attacks are kept in one mask per square.<br>
+ * The sliding pieces use magic bitboards: the relevant blockers of a square
+ * are multiplied by a magic number, and the top bits of the product index a
+ * table holding the attack set for that occupancy.
+ * @author Jed Wang
+ */
+public final class Attacks {
+
+    /**
+     * The shifts a knight jumps with, as (column shift, row shift)
+     */
+    private static final int[][] KNIGHT_SHIFTS = {
+        {-2, -1}, {-2, 1}, {2, -1}, {2, 1}, {1, -2}, {-1, -2}, {1, 2}, {-1, 2}
+    };
+
+    /**
+     * The shifts a king steps with, as (column shift, row shift)
+     */
+    private static final int[][] KING_SHIFTS = {
+        {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+
+    /**
+     * The shifts a white pawn captures with, as (column shift, row shift)
+     */
+    private static final int[][] WHITE_PAWN_SHIFTS = {{-1, -1}, {1, -1}};
+
+    /**
+     * The shifts a black pawn captures with, as (column shift, row shift)
+     */
+    private static final int[][] BLACK_PAWN_SHIFTS = {{-1, 1}, {1, 1}};
+
+    /**
+     * The squares a knight or a king attacks, one per square
+     */
+    private static final long[] KNIGHT_ATTACKS = new long[64], 
+            KING_ATTACKS = new long[64];
+
+    /**
+     * The squares a white or a black pawn attacks, one per square
+     */
+    private static final long[] WHITE_PAWN_ATTACKS = new long[64], 
+            BLACK_PAWN_ATTACKS = new long[64];
+
+    /**
+     * The directions a rook slides in, as (column shift, row shift)
+     */
+    private static final int[][] ROOK_DIRECTIONS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1}
+    };
+
+    /**
+     * The directions a bishop slides in, as (column shift, row shift)
+     */
+    private static final int[][] BISHOP_DIRECTIONS = {
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    /**
+     * The magic numbers for the rook, one per square
+     */
+    private static final long[] ROOK_MAGICS = {
+        0x4080002040001080L, 0x044000100020004AL, 0xC080100080082000L, 0x6500082104100100L,
+        0x4600200842000430L, 0x82000801C4100200L, 0x0400020810310084L, 0x0100008020510002L,
+        0x0A24800040082080L, 0x1400404010002000L, 0x0408801000200980L, 0x1911800800100180L,
+        0x4041800400800800L, 0x020A000200444810L, 0x1085000401000200L, 0x400080188016C900L,
+        0x608000400040201AL, 0x504C80802004400AL, 0x0B03410020001505L, 0x0008008010000880L,
+        0x2208010010090004L, 0x1095010008020400L, 0x00090C0002080130L, 0x44001A0001108854L,
+        0x0201C00580008020L, 0x0000500540002004L, 0x4120008280100220L, 0x0000100080080080L,
+        0x0044000808008040L, 0x0401002F00040088L, 0x000A088400014210L, 0x4001801D80005100L,
+        0x8000400088800030L, 0x4400804000802000L, 0x1000300287802000L, 0x0010801000800800L,
+        0x4000080005001100L, 0x0302000280800400L, 0x1008800200800100L, 0x090304054A001281L,
+        0x7050882040008002L, 0x404008013002A001L, 0x0080100020008080L, 0x0228010200101000L,
+        0x2802040801010010L, 0x08010014008B0008L, 0x8008010802040010L, 0x0080088C00420001L,
+        0x8001008000204100L, 0x0001020020508200L, 0x4400410010200100L, 0x4840220040081200L,
+        0x0403040108008080L, 0x0002001008050200L, 0x0400100102880400L, 0x3000048402590200L,
+        0x0000802011004202L, 0x040D012202108042L, 0x0201004010082001L, 0x2040210004081001L,
+        0x010A001004082002L, 0x0502001004880102L, 0x0180A0C108100E14L, 0x28000C0101209042L
+    };
+
+    /**
+     * The magic numbers for the bishop, one per square
+     */
+    private static final long[] BISHOP_MAGICS = {
+        0x4008204812004010L, 0x4818118102020411L, 0x0288221401348002L, 0x00A4050A04004020L,
+        0x8004242000000101L, 0x60020110080A0000L, 0x2A02021082880602L, 0x8021008800929000L,
+        0x400024042C040424L, 0x2C00040404205E00L, 0x0094100C20604002L, 0x880C0804A9040020L,
+        0x1008011040012544L, 0x1020042404404001L, 0x1008440208840400L, 0x2004C08090A82010L,
+        0x00C010501021A100L, 0x0110420490024840L, 0x0008845000801100L, 0x0088000401433000L,
+        0x400C100206020081L, 0x0004081A10040400L, 0xE40200018621A000L, 0x0003110084809008L,
+        0x0042213240480200L, 0x1A08080004500088L, 0x5008040008204010L, 0xA182080124005060L,
+        0xC020840200802000L, 0x004B010002100280L, 0x0024040101210100L, 0x5848410000410800L,
+        0x2804644008049000L, 0x6004500800240900L, 0x8004040100308901L, 0x0001420080880080L,
+        0x042644C040A40100L, 0x0030900481010092L, 0x020164008004021CL, 0x0082006240010400L,
+        0x01048C2009002001L, 0x004708481A252408L, 0x0680128401021002L, 0x4001020216001C01L,
+        0x0021080104000841L, 0x0440910400200100L, 0x0004810401000400L, 0x0042040918210200L,
+        0x0010484804100049L, 0x00008200D0040000L, 0x0022222508080814L, 0x2051400020A80608L,
+        0x4402202004240200L, 0x0A41401204411001L, 0x02200811952C0068L, 0x8090012801004000L,
+        0x4200108804100401L, 0x0200118409411000L, 0x0400200104010408L, 0x0080244020208803L,
+        0x910820004030490CL, 0x0020021082100102L, 0x0000404421040100L, 0x22E0680208002020L
+    };
+
+    /**
+     * The squares that can block a rook or a bishop, one per square
+     */
+    private static final long[] ROOK_MASKS = new long[64], 
+            BISHOP_MASKS = new long[64];
+
+    /**
+     * How far the magic product is shifted, one per square
+     */
+    private static final int[] ROOK_SHIFTS = new int[64], 
+            BISHOP_SHIFTS = new int[64];
+
+    /**
+     * Where each square's attacks start in the attack tables
+     */
+    private static final int[] ROOK_OFFSETS = new int[64], 
+            BISHOP_OFFSETS = new int[64];
+
+    /**
+     * The attack tables of the sliding pieces
+     */
+    private static final long[] ROOK_ATTACKS, BISHOP_ATTACKS;
+
+    /**
+     * The squares strictly between two squares on a shared line, 
+     * indexed by both squares
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /**
+     * The whole line through two squares, edge to edge, 
+     * indexed by both squares
+     */
+    private static final long[][] LINE = new long[64][64];
+
+    /**
+     * static init
+     */
+    static {
+        for(int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_SHIFTS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_SHIFTS);
+            WHITE_PAWN_ATTACKS[square] = leaperAttacks(square, WHITE_PAWN_SHIFTS);
+            BLACK_PAWN_ATTACKS[square] = leaperAttacks(square, BLACK_PAWN_SHIFTS);
+        }
+        ROOK_ATTACKS = initSlider(ROOK_DIRECTIONS, ROOK_MAGICS, 
+                ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_ATTACKS = initSlider(BISHOP_DIRECTIONS, BISHOP_MAGICS, 
+                BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        for(int a = 0; a < 64; a++) {
+            for(int b = 0; b < 64; b++) {
+                if(a == b) continue;
+                long ends = Bitboard.bit(a) | Bitboard.bit(b);
+                if((rookAttacks(a, 0L) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, ends) & rookAttacks(b, ends);
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | ends;
+                } else if((bishopAttacks(a, 0L) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, ends) & bishopAttacks(b, ends);
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    /**
+     * No instantiation.
+     */
+    private Attacks() {}
+
+    /**
+     * Determines the squares a piece jumping by fixed shifts attacks.<br>
+     * Only used to build the tables
+     * @param square the index of the square the piece is on
+     * @param shifts the shifts the piece can jump with
+     * @return the attacked squares
+     */
+    private static long leaperAttacks(int square, int[][] shifts) {
+        long output = 0L;
+        for(int[] shift : shifts) {
+            int col = Bitboard.getColumn(square), row = Bitboard.getRow(square);
+            if(ChessBoard.isValidShift(col, row, shift[0], shift[1])) {
+                output |= Bitboard.bit(col + shift[0], row + shift[1]);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Fills the masks, shifts and offsets of a sliding piece
+     * and builds its attack table
+     * @param directions the directions the piece slides in
+     * @param magics the magic numbers of the piece
+     * @param masks the blocker masks to fill
+     * @param shifts the shifts to fill
+     * @param offsets the offsets to fill
+     * @return the attack table
+     */
+    private static long[] initSlider(int[][] directions, long[] magics, 
+            long[] masks, int[] shifts, int[] offsets) {
+        int size = 0;
+        for(int square = 0; square < 64; square++) {
+            masks[square] = slidingAttacks(square, Bitboard.EMPTY, directions) 
+                    & ~edges(square);
+            shifts[square] = 64 - Bitboard.count(masks[square]);
+            offsets[square] = size;
+            size += 1 << Bitboard.count(masks[square]);
+        }
+        long[] table = new long[size];
+        for(int square = 0; square < 64; square++) {
+            long mask = masks[square], subset = 0L;
+            do {
+                int index = (int) ((subset * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = 
+                        slidingAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            } while(subset != 0);
+        }
+        return table;
+    }
+
+    /**
+     * Determines the edges of the board that cannot block a piece on a square
+     * @param square the index of the square
+     * @return the edge squares that never block a slide from that square
+     */
+    private static long edges(int square) {
+        long output = 0L;
+        if(Bitboard.getColumn(square) != 0) output |= Bitboard.FILE_A;
+        if(Bitboard.getColumn(square) != 7) output |= Bitboard.FILE_H;
+        if(Bitboard.getRow(square) != 0) output |= Bitboard.RANK_8;
+        if(Bitboard.getRow(square) != 7) output |= Bitboard.RANK_1;
+        return output;
+    }
+
+    /**
+     * Walks each direction one square at a time until a piece is hit.<br>
+     * Only used to build the tables
+     * @param square the index of the square the piece is on
+     * @param occupied the occupied squares
+     * @param directions the directions the piece slides in
+     * @return the attacked squares
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long output = 0L;
+        for(int[] direction : directions) {
+            int col = Bitboard.getColumn(square) + direction[0], 
+                    row = Bitboard.getRow(square) + direction[1];
+            while(ChessBoard.isValidSquare(col, row)) {
+                long bit = Bitboard.bit(col, row);
+                output |= bit;
+                if((occupied & bit) != 0) break;
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Determines the squares strictly between two squares
+     * @param a the index of one square
+     * @param b the index of the other square
+     * @return the squares between them, empty if they do not share a line
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Determines the line through two squares
+     * @param a the index of one square
+     * @param b the index of the other square
+     * @return the whole line through them, empty if they do not share a line
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Determines the squares a knight attacks
+     * @param square the index of the square the knight is on
+     * @return the attacked squares
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Determines the squares a king attacks
+     * @param square the index of the square the king is on
+     * @return the attacked squares
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Determines the squares a pawn attacks
+     * @param square the index of the square the pawn is on
+     * @param isWhite whether the pawn is white
+     * @return the attacked squares
+     */
+    public static long pawnAttacks(int square, boolean isWhite) {
+        return (isWhite)?WHITE_PAWN_ATTACKS[square]:BLACK_PAWN_ATTACKS[square];
+    }
+
+    /**
+     * Determines the squares a rook attacks
+     * @param square the index of the square the rook is on
+     * @param occupied the occupied squares
+     * @return the attacked squares, including the first piece on each ray
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_ATTACKS[ROOK_OFFSETS[square] + 
+                (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) 
+                >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Determines the squares a bishop attacks
+     * @param square the index of the square the bishop is on
+     * @param occupied the occupied squares
+     * @return the attacked squares, including the first piece on each ray
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[square] + 
+                (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) 
+                >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Determines the squares a queen attacks
+     * @param square the index of the square the queen is on
+     * @param occupied the occupied squares
+     * @return the attacked squares, including the first piece on each ray
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+}
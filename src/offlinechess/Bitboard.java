@@ -0,0 +1,191 @@
+package offlinechess;
+
+import java.util.LinkedList;
+
+/**
+ * Helper methods for 64-bit bitboards.<br>
+ * <br>
+ * Bit <code>i</code> of a bitboard stands for the square with the index
+ * <code>row * 8 + column</code>, using the same ABSOLUTE coordinates as
+ * ChessBoard, so a8 is bit 0 and h1 is bit 63.
+ * @author Jed Wang
+ */
+public final class Bitboard {
+
+    /**
+     * An empty bitboard
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * A bitboard with every square set
+     */
+    public static final long ALL = -1L;
+
+    /**
+     * The a-file
+     */
+    public static final long FILE_A = 0x0101010101010101L;
+
+    /**
+     * The h-file
+     */
+    public static final long FILE_H = FILE_A << 7;
+
+    /**
+     * The eighth rank (row 0)
+     */
+    public static final long RANK_8 = 0xFFL;
+
+    /**
+     * The first rank (row 7)
+     */
+    public static final long RANK_1 = RANK_8 << 56;
+
+    /**
+     * Every light square (see ChessBoard.isSquareWhite)
+     */
+    public static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    /**
+     * Every dark square
+     */
+    public static final long DARK_SQUARES = ~LIGHT_SQUARES;
+
+    /**
+     * No instantiation.
+     */
+    private Bitboard() {}
+
+    /**
+     * Determines the index of a square
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return the index of the square, 0 to 63
+     */
+    public static int toIndex(int col, int row) {
+        return (row << 3) | col;
+    }
+
+    /**
+     * Determines the index of a square
+     * @param square a square
+     * @return the index of the square, 0 to 63
+     */
+    public static int toIndex(String square) {
+        return toIndex(ChessBoard.getColumn(square), ChessBoard.getRow(square));
+    }
+
+    /**
+     * Determines the ABSOLUTE column of a square index
+     * @param index the index of a square
+     * @return the column of the square
+     */
+    public static int getColumn(int index) {
+        return index & 7;
+    }
+
+    /**
+     * Determines the ABSOLUTE row of a square index
+     * @param index the index of a square
+     * @return the row of the square
+     */
+    public static int getRow(int index) {
+        return index >>> 3;
+    }
+
+    /**
+     * Determines the square represented by an index
+     * @param index the index of a square
+     * @return the square that is represented by the index
+     */
+    public static String toSquare(int index) {
+        return ChessBoard.toSquare(getColumn(index), getRow(index));
+    }
+
+    /**
+     * Returns a bitboard with only one square set
+     * @param index the index of the square
+     * @return a bitboard with only that square
+     */
+    public static long bit(int index) {
+        return 1L << index;
+    }
+
+    /**
+     * Returns a bitboard with only one square set
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return a bitboard with only that square
+     */
+    public static long bit(int col, int row) {
+        return 1L << toIndex(col, row);
+    }
+
+    /**
+     * Determines whether a square is set in a bitboard
+     * @param bb the bitboard
+     * @param index the index of the square
+     * @return whether the square is set
+     */
+    public static boolean contains(long bb, int index) {
+        return (bb & (1L << index)) != 0;
+    }
+
+    /**
+     * Counts the squares in a bitboard
+     * @param bb the bitboard
+     * @return how many squares are set
+     */
+    public static int count(long bb) {
+        return Long.bitCount(bb);
+    }
+
+    /**
+     * Determines the first square in a bitboard
+     * @param bb the bitboard, which should not be empty
+     * @return the index of the lowest square set
+     */
+    public static int first(long bb) {
+        return Long.numberOfTrailingZeros(bb);
+    }
+
+    /**
+     * Lists the squares in a bitboard
+     * @param bb the bitboard
+     * @return the squares that are set, from a8 to h1
+     */
+    public static LinkedList<String> toSquares(long bb) {
+        LinkedList<String> output = new LinkedList<>();
+        while(bb != 0) {
+            output.add(toSquare(first(bb)));
+            bb &= bb - 1;
+        }
+        return output;
+    }
+
+    /**
+     * Determines the index of a piece's bitboard
+     * @param whichPiece which piece, determined by the number (See: <code>MoveRecorder</code>)
+     * @param isWhite whether the piece is white
+     * @return the index of the piece's bitboard
+     */
+    public static int pieceIndex(int whichPiece, boolean isWhite) {
+        return (isWhite)?whichPiece:whichPiece + 6;
+    }
+
+    /**
+     * Prints a bitboard, used for debugging
+     * @param bb the bitboard to print
+     */
+    public static void print(long bb) {
+        StringBuilder sb = new StringBuilder(72);
+        for(int row = 0; row < 8; row++) {
+            for(int col = 0; col < 8; col++) {
+                sb.append(contains(bb, toIndex(col, row))?'1':'.');
+            }
+            sb.append('\n');
+        }
+        System.out.println(sb);
+    }
+}
@@ -10,21 +10,17 @@ import java.awt.RenderingHints;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 /**
- * A class that represents a chess board
+ * A class that represents a chess board<br>
+ * Draws a Position and lets the players move on it
  * @author Jed Wang
  */
-public class ChessBoard {
-    /**
-     * The chess board
-     */
-    private AbstractPiece[][] board;
-    
+public class ChessBoard extends Position {
     /**
      * Coordinates of the top left corner
      */
@@ -35,11 +31,6 @@ public class ChessBoard {
      */
     private String selected = null;
     
-    /**
-     * Whether the player this board is facing is white
-     */
-    private boolean playerIsWhite = true; // set it during the server application
-    
     /**
      * The MoveRecorder
      */
@@ -53,21 +44,15 @@ public class ChessBoard {
     private int promotion = -1;
     
     /**
-     * The squares open for en passant.<br>
-     * null stands for no open squares<br>
-     * Controls en passant
-     */
-    private String enPassant = null;
-    
-    /**
-     * A Map of all of the legal moves possible
+     * The legal moves of the side to move, by the square moved from.<br>
+     * Filled in a square at a time, as the moves are needed
      */
     private HashMap<String, LinkedList<String>> allLegalMoves;
     
     /**
-     * A Map of the king's position
+     * The Zobrist key of the position allLegalMoves belongs to
      */
-    private HashMap<Boolean, String> kingPos;
+    private long movesKey;
     
     /**
      * The last move by a piece.<br>
@@ -99,12 +84,6 @@ public class ChessBoard {
      */
     private String promotingFrom = null;
     
-    /**
-     * Counts how many times a position repeats<br>
-     * Controls threefold repetition
-     */
-    private HashMap<String, Integer> positions;
-    
     /**
      * From which perspective the board is to be drawn.
      */
@@ -118,6 +97,11 @@ public class ChessBoard {
      */
     private int manipulable = 1;
     
+    /**
+     * Who plays the side that is not manipulable, or null if no one does
+     */
+    private ComputerPlayer computer = null;
+    
     /**
      * The size of the individual chess squares
      */
@@ -157,94 +141,67 @@ public class ChessBoard {
      * Default constructor.
      */
     public ChessBoard() {
-        board = new AbstractPiece[8][8];
+        super();
         initImages();
-        kingPos = new HashMap<>();
-        addPieces();
         mr = new MoveRecorder();
         allLegalMoves = new HashMap<>();
-        positions = new HashMap<>();
         x = 0;
         y = 0;
         lastPoint = ChessPanel.getMouseCoordinates();
     }
     
     /**
-     * Initializes the images
+     * Whether the images of the pieces have been loaded
      */
-    private void initImages() {
+    private static boolean imagesLoaded = false;
+    
+    /**
+     * Initializes the images, the first time a ChessBoard is made
+     */
+    private static synchronized void initImages() {
+        if(imagesLoaded) return;
         try {
-            Bishop.loadImages(getClass().getResource("/images/falseBishop.png"), getClass().getResource("/images/trueBishop.png"));
+            Bishop.loadImages(ChessBoard.class.getResource("/images/falseBishop.png"), ChessBoard.class.getResource("/images/trueBishop.png"));
         } catch(IOException e) {
             System.err.println("Could not find Bishop file images");
             System.exit(1); 
         }
         
         try {
-            King.loadImages(getClass().getResource("/images/falseKing.png"), getClass().getResource("/images/trueKing.png"));
+            King.loadImages(ChessBoard.class.getResource("/images/falseKing.png"), ChessBoard.class.getResource("/images/trueKing.png"));
         } catch(IOException e) {
             System.err.println("Could not find King file images");
             System.exit(1); 
         }
         
         try {
-            Knight.loadImages(getClass().getResource("/images/falseKnight.png"), getClass().getResource("/images/trueKnight.png"));
+            Knight.loadImages(ChessBoard.class.getResource("/images/falseKnight.png"), ChessBoard.class.getResource("/images/trueKnight.png"));
         } catch(IOException e) {
             System.err.println("Could not find Knight file images");
             System.exit(1); 
         }
         
         try {
-            Pawn.loadImages(getClass().getResource("/images/falsePawn.png"), getClass().getResource("/images/truePawn.png"));
+            Pawn.loadImages(ChessBoard.class.getResource("/images/falsePawn.png"), ChessBoard.class.getResource("/images/truePawn.png"));
         } catch(IOException e) {
             System.err.println("Could not find Pawn file images");
             System.exit(1); 
         }
         
         try {
-            Queen.loadImages(getClass().getResource("/images/falseQueen.png"), getClass().getResource("/images/trueQueen.png"));
+            Queen.loadImages(ChessBoard.class.getResource("/images/falseQueen.png"), ChessBoard.class.getResource("/images/trueQueen.png"));
         } catch(IOException e) {
             System.err.println("Could not find Queen file images");
             System.exit(1); 
         }
         
         try {
-            Rook.loadImages(getClass().getResource("/images/falseRook.png"), getClass().getResource("/images/trueRook.png"));
+            Rook.loadImages(ChessBoard.class.getResource("/images/falseRook.png"), ChessBoard.class.getResource("/images/trueRook.png"));
         } catch(IOException e) {
             System.err.println("Could not find Rook file images");
             System.exit(1); 
         }
-    }
-    
-    /**
-     * Adds the starting pieces to a chessboard.
-     */
-    private void addPieces() {
-        for(int i = 0;i<8;i++) {
-            board[i][1] = new Pawn(false);
-            board[i][6] = new Pawn(true);
-        }
-        
-        board[0][0] = new Rook(false);
-        board[1][0] = new Knight(false);
-        board[2][0] = new Bishop(false);
-        board[3][0] = new Queen(false);
-        board[4][0] = new King(false);
-        board[5][0] = new Bishop(false);
-        board[6][0] = new Knight(false);
-        board[7][0] = new Rook(false);
-        
-        board[0][7] = new Rook(true);
-        board[1][7] = new Knight(true);
-        board[2][7] = new Bishop(true);
-        board[3][7] = new Queen(true);
-        board[4][7] = new King(true);
-        board[5][7] = new Bishop(true);
-        board[6][7] = new Knight(true);
-        board[7][7] = new Rook(true);
-        
-        kingPos.put(true, "e1");
-        kingPos.put(false, "e8");
+        imagesLoaded = true;
     }
     
     /**
@@ -258,16 +215,33 @@ public class ChessBoard {
         this.y = y;
     }
     
+    /**
+     * Constructor from a position in Forsyth-Edwards Notation
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public ChessBoard(String fen) {
+        super(fen);
+        initImages();
+        mr = new MoveRecorder(toFEN());
+        allLegalMoves = new HashMap<>();
+        x = 0;
+        y = 0;
+        lastPoint = ChessPanel.getMouseCoordinates();
+    }
+    
     /**
      * Constructor from a previous ChessBoard
      * @param cb the ChessBoard to duplicate
      */
     public ChessBoard(ChessBoard cb) {
-        this();
-        for(int i = 0; i < cb.board.length; i++) {
-            System.arraycopy(cb.board[i], 0, board[i], 0, cb.board[i].length);
-        }
-        this.enPassant = cb.enPassant;
+        super(cb);
+        initImages();
+        mr = new MoveRecorder();
+        allLegalMoves = new HashMap<>();
+        x = 0;
+        y = 0;
+        lastPoint = ChessPanel.getMouseCoordinates();
     }
     
     /**
@@ -390,7 +364,7 @@ public class ChessBoard {
                 return;
             } else selection = selected;
         } else selection = draggingFrom;
-        LinkedList<String> moves = allLegalMoves.get(selection);
+        LinkedList<String> moves = getLegalMoves(selection);
         if(moves == null) return;
         Color moveDest = new Color(20, 85, 30, 77);
         g2D.setColor(moveDest);
@@ -459,12 +433,12 @@ public class ChessBoard {
             Color outsideNH = new Color(128, 128, 128);
             Color outsideH = new Color(216, 80, 0);
             BufferedImage[] promotions = new BufferedImage[]{
-                Queen.getImage(playerIsWhite), Rook.getImage(playerIsWhite), 
-                Bishop.getImage(playerIsWhite), Knight.getImage(playerIsWhite)
+                Queen.getImage(getCurrentPlayer()), Rook.getImage(getCurrentPlayer()), 
+                Bishop.getImage(getCurrentPlayer()), Knight.getImage(getCurrentPlayer())
             };
             int col = (fromPerspective)?promotion:7-promotion;
             if(ChessPanel.getMouseCoordinates() == null) {
-                if(playerIsWhite ^ fromPerspective) {
+                if(getCurrentPlayer() ^ fromPerspective) {
                     for(int i = 7; i >= 4; i--) {
                         g2D.setPaint(new RadialGradientPaint((SQUARE_SIZE/2) + (col*SQUARE_SIZE)+x, (SQUARE_SIZE/2) + (SQUARE_SIZE * i)+y, 57, new float[]{0F, 1.0F}, new Color[]{inside, outsideNH}));
                         g2D.fill(new Ellipse2D.Double(col*SQUARE_SIZE+x, SQUARE_SIZE * i+y, SQUARE_SIZE, SQUARE_SIZE));
@@ -479,7 +453,7 @@ public class ChessBoard {
                 }
             } else {
                 Point mouse = new Point((ChessPanel.getMouseCoordinates().x-x)/60, (ChessPanel.getMouseCoordinates().y-y)/60);
-                if(playerIsWhite ^ fromPerspective) {
+                if(getCurrentPlayer() ^ fromPerspective) {
                     for(int i = 7; i >= 4; i--) {
                         if(mouse.x == col && mouse.y == i) {
                             g2D.setPaint(
@@ -586,9 +560,9 @@ public class ChessBoard {
             new Color(255, 0, 0, 255), new Color(231, 0, 0, 255), 
             new Color(169, 0, 0, 0), new Color(158, 0, 0, 0)
         };
-        if(inCheck(playerIsWhite)) {
-            String kingAt = kingPos.get(playerIsWhite);
-            int col = getColumn(kingAt), row = getRow(kingAt);
+        if(inCheck(getCurrentPlayer())) {
+            int kingAt = getKingSquare(getCurrentPlayer());
+            int col = Bitboard.getColumn(kingAt), row = Bitboard.getRow(kingAt);
             if(!fromPerspective) {
                 col = 7 - col;
                 row = 7 - row;
@@ -628,200 +602,42 @@ public class ChessBoard {
     }
     
     /**
-     * Determines which piece occupies a square
-     * @param square a square
-     * @return the piece on that square, and if none, null
-     */
-    public AbstractPiece getPiece(String square) {
-        if(isValidSquare(square)) {
-            return board[getColumn(square)][getRow(square)];
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Determines which piece occupies a space represented by ABSOLUTE coordinates<br>
-     * i.e. (0, 0) represents the top left corner
-     * @param col the ABSOLUTE column
-     * @param row the ABSOLUTE row
-     * @return the piece on that square, and if none, null
-     */
-    public AbstractPiece getPiece(int col, int row) {
-        if(isValidSquare(col, row)) {
-            return board[col][row];
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Determines whether a square is empty
-     * @param square a square
-     * @return whether that square is empty
+     * Forgets the cached legal moves.<br>
+     * They are calculated again, a square at a time, when they are next needed
      */
-    public boolean isEmptySquare(String square) {
-        return getPiece(square) == null;
-    }
-    
-    /**
-     * Determines whether a space represented by ABSOLUTE coordinates is empty
-     * @param col the ABSOLUTE column
-     * @param row the ABSOLUTE row
-     * @return whether that square is empty
-     */
-    public boolean isEmptySquare(int col, int row) {
-        return getPiece(col, row) == null;
-    }
-    
-    /**
-     * Determines the validity of the square
-     * @param s a square
-     * @return whether the square is valid
-     */
-    public static boolean isValidSquare(String s) {
-        if(s == null) return false;
-        if(s.length() == 2) {
-            int col = s.charAt(0)-'a', 
-                    row = 8 - Integer.parseInt(s.charAt(1) + "");
-            return Character.isLowerCase(s.charAt(0)) && 
-                    Character.isDigit(s.charAt(1)) && isValidSquare(col, row);
-        } else return false;
-    }
-    
-    /**
-     * Determines the validity of the square
-     * @param col the ABSOLUTE column
-     * @param row the ABSOLUTE row
-     * @return whether the square is valid
-     */
-    public static boolean isValidSquare(int col, int row) {
-        return col >= 0 && col <= 7 && row >= 0 && row <= 7;
-    }
-    
-    /**
-     * Determines which column a square is referring to<br>
-     * <br>
-     * The columns are ordered as such:<br>
-     * |_|_|_|_|_|_|_|_|<br>
-     * |0 1 2 3 4 5 6 7<br>
-     * |a b c d e f g h
-     * @param s a square
-     * @return which column the String is referring to
-     */
-    public static int getColumn(String s) {
-        if(isValidSquare(s)) {
-            return s.charAt(0)-'a';
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Determines which row a square is referring to<br>
-     * <br>
-     * The rows are ordered as such:<br>
-     * ____<br>
-     * 0 |_<br>
-     * 1 |_ <br>
-     * 2 |_<br>
-     * 3 |_<br>
-     * 4 |_<br>
-     * 5 |_<br>
-     * 6 |_<br>
-     * 7 |_<br>
-     * ___W
-     * @param s the square
-     * @return the column / file
-     */
-    public static int getRow(String s) {
-        if(isValidSquare(s)) {
-            return 8 - Integer.parseInt(s.charAt(1) + "");
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Determines where a square is after a shift (a.k.a. moving it left and right, up and down)
-     * @param col current column
-     * @param row current row
-     * @param colShift how much to shift the columns
-     * @param rowShift how much to shift the rows
-     * @return the shifted square
-     */
-    public static String shiftSquare(int col, int row, int colShift, int rowShift) {
-        if(isValidSquare(col, row)) {
-            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
-            if(isValidSquare(shiftedCol, shiftedRow)) {
-                return toSquare(shiftedCol, shiftedRow);
-            } else throw new IllegalArgumentException("Invalid shift");
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Determines where a square is after a shift (a.k.a. moving it left and right, up and down)
-     * @param s the current square
-     * @param colShift how much to shift the columns
-     * @param rowShift how much to shift the rows
-     * @return the shifted square
-     */
-    public static String shiftSquare(String s, int colShift, int rowShift) {
-        if(isValidSquare(s)) {
-            int col = getColumn(s), row = getRow(s);
-            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
-            if(isValidSquare(shiftedCol, shiftedRow)) {
-                return toSquare(shiftedCol, shiftedRow);
-            } else throw new IllegalArgumentException("Invalid shift");
-        } else throw new IllegalArgumentException("Invalid square");
-    }
-    
-    /**
-     * Checks if a shift is valid
-     * @param col current column
-     * @param row current row
-     * @param colShift how much to shift the columns
-     * @param rowShift how much to shift the rows
-     * @return whether the shift is valid
-     */
-    public static boolean isValidShift(int col, int row, int colShift, int rowShift) {
-        if(isValidSquare(col, row)) {
-            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
-            return isValidSquare(shiftedCol, shiftedRow);
-        } else return false;
+    public void recalculateMoves() {
+        allLegalMoves.clear();
+        movesKey = getKey();
     }
     
     /**
-     * Checks if this shift is valid
-     * @param s current square
-     * @param colShift how much to shift the columns
-     * @param rowShift how much to shift the rows
-     * @return whether the shift is valid
+     * Returns the legal moves of the piece on a square.<br>
+     * They are calculated the first time they are needed in a position
+     * @param square the square the piece is on
+     * @return the squares the piece can move to, 
+     * or null if the square does not hold a piece of the side to move
      */
-    public static boolean isValidShift(String s, int colShift, int rowShift) {
-        return isValidShift(
-                ChessBoard.getColumn(s), ChessBoard.getRow(s), 
-                colShift, rowShift
-        );
+    public LinkedList<String> getLegalMoves(String square) {
+        if(movesKey != getKey()) recalculateMoves();
+        LinkedList<String> moves = allLegalMoves.get(square);
+        if(moves == null) {
+            AbstractPiece ap = getPiece(square);
+            if(ap == null || ap.isWhite != getCurrentPlayer()) return null;
+            moves = ap.legalMoves(this, square);
+            allLegalMoves.put(square, moves);
+        }
+        return moves;
     }
     
     /**
-     * Determines the square represented by the row and column
-     * @param column the ABSOLUTE column
-     * @param row the ABSOLUTE row
-     * @return the square that is represented by the row and column
+     * Determines whether a move is legal, using the cached legal moves
+     * @param fromWhere from where a piece is moved
+     * @param toWhere where to move the piece
+     * @return whether the move is legal
      */
-    public static String toSquare(int column, int row) {
-        return "" + (char)('a' + column) + (8 - row);
-    }
-    
-    /**
-     * Recalculates all of the moves on a square
-     */
-    public void recalculateMoves() {
-        allLegalMoves = new HashMap<>();
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].isWhite == playerIsWhite) {
-                    String current = ChessBoard.toSquare(i, j);
-                    LinkedList<String> moves = board[i][j].legalMoves(this, current);
-                    allLegalMoves.put(current, moves);
-                }
-            }
-        }
+    private boolean isCachedLegalMove(String fromWhere, String toWhere) {
+        LinkedList<String> moves = getLegalMoves(fromWhere);
+        return moves != null && moves.contains(toWhere);
     }
     
     /**
@@ -846,75 +662,41 @@ public class ChessBoard {
      * @param toWhereY where to move a piece
      */
     public void movePiece(int fromWhereX, int fromWhereY, int toWhereX, int toWhereY) {
-        ChessBoard thisCopy = new ChessBoard(this);
-        maybeMove(fromWhereX, fromWhereY, toWhereX, toWhereY);
-        if(board[toWhereX][toWhereY].getCharRepresentation().equals("K")) {
-            ((King)(board[toWhereX][toWhereY])).notifyOfMove();
-        }
-        enPassant = null;
-        if(board[toWhereX][toWhereY].getCharRepresentation().equals("P")) {
-            if(Math.abs(fromWhereY-toWhereY) == 2) {
-                String file = (char) ('a' + fromWhereX) + "", rank = String.valueOf(8-((fromWhereY+toWhereY)/2));
-                enPassant = file + rank;
-            }
-        }
-        String kingAt = kingPos.get(playerIsWhite);
-        ((King)(board[getColumn(kingAt)][getRow(kingAt)])).notifyNoCheck();
-        System.out.println("Moved: " + playerIsWhite);
-        playerIsWhite = !playerIsWhite;
+        playMove(Bitboard.toIndex(fromWhereX, fromWhereY), 
+                Bitboard.toIndex(toWhereX, toWhereY), MoveRecorder.QUEEN);
+        System.out.println("Moved: " + !getCurrentPlayer());
         recalculateMoves();
-        updatePos(miniFEN());
-        mr.moved(thisCopy, this, ChessBoard.toSquare(fromWhereX, fromWhereY), ChessBoard.toSquare(toWhereX, toWhereY));
         lastMoveFrom = toSquare(fromWhereX, fromWhereY);
         lastMoveTo = toSquare(toWhereX, toWhereY);
-        if(checkMated(playerIsWhite)) System.out.println("Checkmate!\n");
-        else if(inCheck(playerIsWhite)) {
-            ((King)(getPiece(kingPos.get(playerIsWhite)))).notifyCheck();
-            System.out.println("Check!\n");
-        } else if(isDraw(playerIsWhite)) System.out.println("Draw.\n");
+        if(checkMated(getCurrentPlayer())) System.out.println("Checkmate!\n");
+        else if(inCheck(getCurrentPlayer())) System.out.println("Check!\n");
+        else if(isDraw(getCurrentPlayer())) System.out.println("Draw.\n");
         ChessMain.Timer.end();
-    }
-    
-    /**
-     * Used to check whether this move is legal
-     * @param fromWhere from where to move a piece
-     * @param toWhere to where to move a piece
-     */
-    public void maybeMove(String fromWhere, String toWhere) {
-        maybeMove(
-                getColumn(fromWhere), getRow(fromWhere), 
-                getColumn(toWhere), getRow(toWhere)
-        );
-    }
-    
-    /**
-     * Used to check whether this move is legal
-     * @param fromWhereX from which column to move a piece
-     * @param fromWhereY from which row to move a piece
-     * @param toWhereX to which column to move a piece
-     * @param toWhereY to which row to move a piece
-     */
-    public void maybeMove(int fromWhereX, int fromWhereY, int toWhereX, int toWhereY) {
-        if(board[fromWhereX][fromWhereY].getCharRepresentation().equals("K")) {
-            if(Math.abs(fromWhereX-toWhereX) == 2 && fromWhereY == toWhereY) {
-                // Castling
-                if(fromWhereX < toWhereX) {
-                    // Castling Kingside
-                    board[toWhereX-1][toWhereY] = board[7][fromWhereY];
-                    board[7][fromWhereY] = null;
-                } else {
-                    // Castling Queenside
-                    board[toWhereX+1][toWhereY] = board[0][fromWhereY];
-                    board[0][fromWhereY] = null;
-                }
-            }
-        } else if(toSquare(toWhereX, toWhereY).equals(enPassant)) {
-            board[getColumn(enPassant)][getRow(enPassant)+(fromWhereY-toWhereY)] = null;
+        computerTurn();
+    }
+    
+    /**
+     * Makes a legal move and records it
+     * @param from the index of the square moved from
+     * @param to the index of the square moved to
+     * @param toWhatPiece to what piece to promote to, if the move is a promotion
+     */
+    private void playMove(int from, int to, int toWhatPiece) {
+        AbstractPiece piece = getPiece(from);
+        if(piece == null) throw new IllegalArgumentException("Null piece");
+        // the moves of every piece of the same type, which SAN needs to tell them apart
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(this, piece.isWhite, 
+                getBitboard(piece.getType(), piece.isWhite), moves, 0);
+        for(int i = 0; i < count; i++) {
+            if(Move.getTo(moves[i]) != to || Move.getFrom(moves[i]) != from) continue;
+            if(Move.isPromotion(moves[i]) && Move.getPromotion(moves[i]) != toWhatPiece) continue;
+            String san = MoveRecorder.toSAN(this, moves[i], moves, count);
+            makeMove(moves[i]);
+            mr.moved(this, san);
+            return;
         }
-        
-        board[toWhereX][toWhereY] = board[fromWhereX][fromWhereY];
-        board[fromWhereX][fromWhereY] = null;
-        if(board[toWhereX][toWhereY].getCharRepresentation().equals("K")) kingPos.put(playerIsWhite, toSquare(toWhereX, toWhereY));
+        throw new IllegalArgumentException("This isn\'t a legal move");
     }
     
     /**
@@ -926,37 +708,18 @@ public class ChessBoard {
     public void promotePiece(String fromWhere, String toWhere, int toWhatPiece) {
         if(!getPiece(fromWhere).getCharRepresentation().equals("P")) 
             assert false : "Cannot promote a non-pawn";
-        boolean isWhite = getPiece(fromWhere).isWhite;
-        ChessBoard thisCopy = new ChessBoard(this);
         int fromWhereX = getColumn(fromWhere), fromWhereY = getRow(fromWhere);
         int toWhereX = getColumn(toWhere), toWhereY = getRow(toWhere);
-        board[fromWhereX][fromWhereY] = null;
-        // board[toWhereX][toWhereY];
-        switch(toWhatPiece) {
-            case MoveRecorder.BISHOP:
-                board[toWhereX][toWhereY] = new Bishop(isWhite);
-                break;
-            case MoveRecorder.KNIGHT:
-                board[toWhereX][toWhereY] = new Knight(isWhite);
-                break;
-            case MoveRecorder.QUEEN:
-                board[toWhereX][toWhereY] = new Queen(isWhite);
-                break;
-            case MoveRecorder.ROOK:
-                board[toWhereX][toWhereY] = new Rook(isWhite);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown piece" + toWhatPiece);
-        }
-        playerIsWhite = !playerIsWhite;
-        mr.moved(thisCopy, this, fromWhere, toWhere);
+        promoted(toWhatPiece, true); // throws if it is an unknown piece
+        playMove(Bitboard.toIndex(fromWhere), Bitboard.toIndex(toWhere), toWhatPiece);
         System.out.println("Promoted from " + fromWhere + " to " + toWhere + " to a " + toWhatPiece);
         recalculateMoves();
         lastMoveFrom = toSquare(fromWhereX, fromWhereY);
         lastMoveTo = toSquare(toWhereX, toWhereY);
-        if(checkMated(playerIsWhite)) System.out.println("Checkmate!\n");
-        else if(inCheck(playerIsWhite)) System.out.println("Check!\n");
-        else if(stalemated(playerIsWhite)) System.out.println("Stalemate.\n");
+        if(checkMated(getCurrentPlayer())) System.out.println("Checkmate!\n");
+        else if(inCheck(getCurrentPlayer())) System.out.println("Check!\n");
+        else if(stalemated(getCurrentPlayer())) System.out.println("Stalemate.\n");
+        computerTurn();
     }
     
     /**
@@ -981,108 +744,23 @@ public class ChessBoard {
      */
     @Deprecated
     public void placePiece(AbstractPiece ap, int col, int row) {
-        board[col][row] = ap;
+        setSquare(col, row, ap);
     }
     
     /**
-     * Determines whether one side's king is in check
-     * @param isWhite whether the side to check is white (PUN INTENDED)
-     * @return whether the side is in check
-     */
-    public boolean inCheck(boolean isWhite) {
-        for(int i = 0;i<8;i++) {
-            for(int j = 0;j<8;j++) {
-                AbstractPiece ap = getPiece(i, j);//lit dude lit
-                if(ap != null) {
-                    if(ap.isWhite ^ isWhite) {
-                        //if(ap.legalCaptures(this, ChessBoard.toSquare(i, j)).contains(kingPos))
-                        // if the current opposite-colored piece can eat the king on the next move
-                        if(ap.isAllLegalMove(this, ChessBoard.toSquare(i, j), kingPos.get(isWhite))) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
-    }
-    
-    /**
-     * Determines whether the king is checkmated
-     * @param isWhite whether the side to check is white (PUN INTENDED)
-     * @return whether the side is checkmated
-     */
-    public boolean checkMated(boolean isWhite) {
-        if(inCheck(isWhite)) {
-            for(String s : allLegalMoves.keySet()) {
-                if(!allLegalMoves.get(s).isEmpty()) return false;
-            }
-            return true;
-        } else return false;
-    }
-    
-    /**
-     * Determines whether one side is stalemated
-     * @param isWhite whether the side to check is white
-     * @return whether one side is stalemated
+     * Sets up a position written in Forsyth-Edwards Notation 
+     * and starts recording the game from there
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the FEN is not valid
      */
-    public boolean stalemated(boolean isWhite) {
-        for(LinkedList<String> allLegalMove : allLegalMoves.values()) {
-            if(!allLegalMove.isEmpty()) return false;
-        }
-        return !inCheck(isWhite);
-    }
-    
-    /**
-     * Determines whether either side has insufficient material to checkmate
-     * @return whether either side has insufficient material to checkmate
-     */
-    public boolean insufficientMaterial() {
-        HashMap<String, Integer> pieces = new HashMap<>();
-        pieces.put("BW", 0);
-        pieces.put("BB", 0);
-        pieces.put("N", 0);
-        pieces.put("bw", 0);
-        pieces.put("bb", 0);
-        pieces.put("n", 0);
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K")) continue;
-                if("QRP".contains(board[i][j].getCharRepresentation())) return false;
-                String rep = board[i][j].getCharRepresentation();
-                if(board[i][j].getCharRepresentation().equals("B")) {
-                    if(isSquareWhite(i, j))
-                        rep += "W";
-                    else
-                        rep += "B";
-                }
-                if(board[i][j].getCharRepresentation().equals("N")) {
-                    String nRep = (board[i][j].isWhite)?"N":"n";
-                    if(pieces.get(nRep) == 1)
-                        return false;
-                }
-                if(!board[i][j].isWhite)
-                    rep = rep.toLowerCase();
-                try {
-                    pieces.put(rep, pieces.get(rep)+1);
-                } catch(NullPointerException npe) {
-                    throw new NullPointerException(npe.getMessage() + ": " + rep);
-                }
-            }
-        }
-        final boolean noBW = pieces.get("BW") == 0, 
-                noBB = pieces.get("BB") == 0, noN = pieces.get("N") == 0;
-        final boolean nobw = pieces.get("bw") == 0, 
-                nobb = pieces.get("bb") == 0, non = pieces.get("n") == 0;
-        final boolean whiteBare = noBW && noBB && noN;
-        final boolean blackBare = nobw && nobb && non;
-        return (whiteBare && blackBare) || 
-                (noN && non && ((noBB && nobb) || (noBW && nobw))) ||
-                (blackBare && noN && (noBW || noBB)) || 
-                (blackBare && noBB && noBW && pieces.get("N") == 1) || 
-                (whiteBare && non && (nobw || nobb)) || 
-                (whiteBare && nobb && nobw && pieces.get("n") == 1);
+    @Override
+    public void setFEN(String fen) {
+        super.setFEN(fen);
+        mr = new MoveRecorder(toFEN());
+        lastMoveFrom = null;
+        lastMoveTo = null;
+        recalculateMoves();
+        computerTurn();
     }
     
     /**
@@ -1091,140 +769,8 @@ public class ChessBoard {
      * @return whether the game is a draw
      */
     public boolean isDraw(boolean isWhite) {
-        return insufficientMaterial() || stalemated(isWhite) || mr.is50MoveDraw();
-    }
-    
-    /**
-     * Determines whether there is threefold repetition
-     * @return whether there is threefold repetition
-     */
-    public boolean threeFoldRep() {
-        for(int value : positions.values()) {
-            if(value >= 3)
-                return true;
-        }
-        return false;
-    }
-    
-    /**
-     * Updates positions
-     * @param pos the position to update with
-     */
-    private void updatePos(String pos) {
-        if(positions.containsKey(pos)) {
-            positions.put(pos, positions.get(pos)+1);
-        } else {
-            positions.put(pos, 1);
-        }
-    }
-    
-    /**
-     * Determines whether a square is white
-     * @param square the square to check
-     * @return whether the square is white
-     */
-    public static boolean isSquareWhite(String square) {
-        return isSquareWhite(getColumn(square), getRow(square));
-    }
-    
-    /**
-     * Determines whether a square is white
-     * @param col the column of the square to check
-     * @param row the row of the square to check
-     * @return whether the square is white
-     */
-    public static boolean isSquareWhite(int col, int row) {
-        return (col+row)%2==0;
-    }
-    
-    /**
-     * Determines where all of the pieces which fit the criteria
-     * @param whichPiece which piece, determined by the number
-     * @param isWhite whether the piece is white
-     * @return where all of the pieces are
-     */
-    public ArrayList<String> findAll(int whichPiece, boolean isWhite) {
-        String representation;
-        switch(whichPiece) {
-            case MoveRecorder.BISHOP:
-                representation = "B";
-                break;
-            case MoveRecorder.KING:
-                representation = "K";
-                break;
-            case MoveRecorder.KNIGHT:
-                representation = "N";
-                break;
-            case MoveRecorder.PAWN:
-                representation = "P";
-                break;
-            case MoveRecorder.QUEEN:
-                representation = "Q";
-                break;
-            case MoveRecorder.ROOK:
-                representation = "R";
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown piece type: " + whichPiece);
-        }
-        ArrayList<String> output = new ArrayList<>();
-        for(int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(isWhite == board[i][j].isWhite && board[i][j].getCharRepresentation().equals(representation)) {
-                    output.add(toSquare(i, j));
-                }
-            }
-        }
-        return output;
-    }
-    
-    /**
-     * Refinds both kings.
-     */
-    public void resetKingPos() {
-        String bKing = null, wKing = null;
-        OUTER: for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K")) {
-                    if(board[i][j].isWhite) {
-                        if(wKing == null) {
-                            wKing = toSquare(i, j);
-                        } else {
-                            assert false : "There are two white kings?!";
-                        }
-                    } else {
-                        if(bKing == null) {
-                            bKing = toSquare(i, j);
-                        } else {
-                            assert false : "There are two black kings?!";
-                        }
-                    }
-                    if(wKing != null && bKing != null) break OUTER;
-                }
-            }
-        }
-        if(wKing == null) assert false : "Cannot find white king";
-        if(bKing == null) assert false : "Cannot find black king";
-        kingPos.put(true, wKing);
-        kingPos.put(false, bKing);
-    }
-    
-    /**
-     * Refinds only one king.
-     * @param isWhite whether the king to find again is white
-     */
-    public void resetKingPos(boolean isWhite) {
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K") && (board[i][j].isWhite == isWhite)) {
-                    kingPos.put(isWhite, toSquare(i, j));
-                    return;
-                }
-            }
-        }
+        return insufficientMaterial() || stalemated(isWhite) || is50MoveDraw() 
+                || threeFoldRep();
     }
     
     /**
@@ -1233,14 +779,14 @@ public class ChessBoard {
      */
     public void clicked(String square) {
         if(selected == null && promotion == -1) {
-            if(!isEmptySquare(square) && (getPiece(square).isWhite == playerIsWhite) && 
-                    ((playerIsWhite && manipulable == 0) || (!playerIsWhite && manipulable == 1) || manipulable == 2)) {
+            if(!isEmptySquare(square) && (getPiece(square).isWhite == getCurrentPlayer()) && 
+                    ((getCurrentPlayer() && manipulable == 0) || (!getCurrentPlayer() && manipulable == 1) || manipulable == 2)) {
                 selected = square;
             }
         } else if(promotion != -1) {
             if(ChessBoard.getColumn(square) == promotion) {
-                String promoteTo = toSquare((playerIsWhite)?7:0, (fromPerspective)?promotion:7-promotion);
-                if(playerIsWhite) {
+                String promoteTo = toSquare(promotion, (getCurrentPlayer())?0:7);
+                if(getCurrentPlayer()) {
                     /**
                      * QUEEN
                      * ROOK
@@ -1285,7 +831,7 @@ public class ChessBoard {
             selected = null;
         } else {
             if(!isEmptySquare(square)) {
-                if(getPiece(selected).isLegalMove(this, selected, square)) {
+                if(isCachedLegalMove(selected, square)) {
                     if(getPiece(selected).getCharRepresentation().equals("P") && (ChessBoard.getRow(square) == 0 || ChessBoard.getRow(square) == 7)) {
                         promotion = ChessBoard.getColumn(square);
                         promotingFrom = selected;
@@ -1294,14 +840,14 @@ public class ChessBoard {
                         selected = null;
                     }
                 } else {
-                    if(getPiece(square).isWhite == playerIsWhite) {
+                    if(getPiece(square).isWhite == getCurrentPlayer()) {
                         selected = square;
                     } else {
                         selected = null;
                     }
                 }
             } else {
-                if(getPiece(selected).isLegalMove(this, selected, square)) {
+                if(isCachedLegalMove(selected, square)) {
                     if(getPiece(selected).getCharRepresentation().equals("P") && (ChessBoard.getRow(square) == 0 || ChessBoard.getRow(square) == 7)) {
                         promotion = ChessBoard.getColumn(square);
                         promotingFrom = selected;
@@ -1321,9 +867,9 @@ public class ChessBoard {
      */
     public void enableDragging(String fromWhere) {
         if(!isEmptySquare(fromWhere)) 
-            if(getPiece(fromWhere).isWhite == playerIsWhite && 
-                    ((playerIsWhite && manipulable == 0) || 
-                    (!playerIsWhite && manipulable == 1) || manipulable == 2)) 
+            if(getPiece(fromWhere).isWhite == getCurrentPlayer() && 
+                    ((getCurrentPlayer() && manipulable == 0) || 
+                    (!getCurrentPlayer() && manipulable == 1) || manipulable == 2)) 
                 draggingFrom = fromWhere;
             else 
                 fakeDraggingFrom = fromWhere;
@@ -1345,7 +891,7 @@ public class ChessBoard {
         /*if(getPiece(draggingFrom).isLegalMove(this, draggingFrom, dropSquare)) {
             movePiece(draggingFrom, dropSquare);
         }*/
-        if(getPiece(draggingFrom).isLegalMove(this, draggingFrom, toWhere)) {
+        if(isCachedLegalMove(draggingFrom, toWhere)) {
             if(getPiece(draggingFrom).getCharRepresentation().equals("P") && (ChessBoard.getRow(toWhere) == 0 || ChessBoard.getRow(toWhere) == 7)) {
                 promotion = ChessBoard.getColumn(toWhere);
                 promotingFrom = draggingFrom;
@@ -1373,22 +919,6 @@ public class ChessBoard {
         return y;
     }
 
-    /**
-     * Determines which square is open for en passant
-     * @return which square is open for en passant
-     */
-    public String getEnPassant() {
-        return enPassant;
-    }
-
-    /**
-     * Returns the board of AbstractPieces
-     * @return the board of AbstractPieces
-     */
-    public AbstractPiece[][] getBoard() {
-        return board;
-    }
-
     /**
      * Determines from which perspective this ChessBoard is drawn
      * @return from which perspective this ChessBoard is drawn
@@ -1397,14 +927,6 @@ public class ChessBoard {
         return fromPerspective;
     }
     
-    /**
-     * Returns the current player
-     * @return the current player
-     */
-    public boolean getCurrentPlayer() {
-        return playerIsWhite;
-    }
-    
     /**
      * Determines the square being referenced from a position
      * @param xPos the x-position of the mouse
@@ -1469,6 +991,7 @@ public class ChessBoard {
     public void setStandardPerspective(boolean isWhite) {
         fromPerspective = isWhite;
         manipulable = (isWhite)?WHITE_MANIPULABLE:BLACK_MANIPULABLE;
+        computerTurn();
     }
 
     /**
@@ -1481,34 +1004,30 @@ public class ChessBoard {
     }
 
     /**
-     * DO NOT USE OFTEN <br>
-     * Sets this board to a new state
-     * @param board the board to set to
-     */
-    public void setBoard(AbstractPiece[][] board) {
-        this.board = new AbstractPiece[board.length][board[0].length];
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                this.board[i][j] = board[i][j];
-            }
-        }
+     * Sets who plays the side that is not manipulable, 
+     * and lets it move if it is its turn
+     * @param computer the computer player, or null for no one
+     */
+    public void setComputer(ComputerPlayer computer) {
+        this.computer = computer;
+        computerTurn();
     }
     
     /**
-     * Prints the current state of the chess board.
+     * Returns who plays the side that is not manipulable
+     * @return the computer player, or null if no one does
      */
-    public void printBoard() {
-        for(int i = 0;i<board[0].length;i++) {
-            for(int j = 0;j<board.length;j++) {
-                AbstractPiece ap = board[j][i];
-                if(ap == null) {
-                    System.out.print(" ");
-                } else System.out.print(ap.getCharRepresentation());
-            }
-            System.out.println();
-        }
+    public ComputerPlayer getComputer() {
+        return computer;
     }
     
+    /**
+     * Lets the computer player move if it is its turn
+     */
+    private void computerTurn() {
+        if(computer != null) computer.play(this);
+    }
+
     /**
      * Prints all of the current moves.
      */
@@ -1517,30 +1036,15 @@ public class ChessBoard {
     }
     
     /**
-     * Returns a miniature of this chess board
-     * @return a miniature of this chess board
+     * Appends the game to the end of a PGN archive
+     * @param archive the file to append to
+     * @param white the name of the white player
+     * @param black the name of the black player
+     * @throws IOException if the file cannot be written
      */
-    public String miniFEN() {
-        String output = "";
-        for(AbstractPiece[] col : board) {
-            int blanks = 0;
-            for(AbstractPiece piece : col) {
-                if(piece == null) {
-                    blanks++;
-                } else {
-                    if(blanks != 0) {
-                        output += blanks;
-                    }
-                    blanks = 0;
-                    String rep = piece.getCharRepresentation();
-                    if(piece.isWhite) 
-                        output += rep.toUpperCase(); 
-                    else 
-                        output += rep.toLowerCase();
-                }
-            }
-            output += "/";
+    public void exportGame(File archive, String white, String black) throws IOException {
+        try(PgnWriter pw = PgnWriter.append(archive)) {
+            pw.writeGame(mr, white, black);
         }
-        return output;
     }
 }
\ No newline at end of file
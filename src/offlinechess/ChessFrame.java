@@ -76,6 +76,8 @@ public class ChessFrame extends JFrame {
         title = new JLabel();
         blackAdvantagePane = new JPanel();
         whiteAdvantagePane = new JPanel();
+        blackAdvantage = new JLabel();
+        whiteAdvantage = new JLabel();
         chatPanel = new JPanel();
         chatCheckBox = new JCheckBox();
         jSeparator7 = new JSeparator();
@@ -445,28 +447,32 @@ public class ChessFrame extends JFrame {
 
         blackAdvantagePane.setPreferredSize(new Dimension(235, 25));
 
+        blackAdvantage.setFont(new Font("Verdana", 0, 11)); // NOI18N
+
         GroupLayout blackAdvantagePaneLayout = new GroupLayout(blackAdvantagePane);
         blackAdvantagePane.setLayout(blackAdvantagePaneLayout);
         blackAdvantagePaneLayout.setHorizontalGroup(
             blackAdvantagePaneLayout.createParallelGroup(GroupLayout.Alignment.LEADING)
-            .addGap(0, 0, Short.MAX_VALUE)
+            .addComponent(blackAdvantage, GroupLayout.DEFAULT_SIZE, GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
         );
         blackAdvantagePaneLayout.setVerticalGroup(
             blackAdvantagePaneLayout.createParallelGroup(GroupLayout.Alignment.LEADING)
-            .addGap(0, 25, Short.MAX_VALUE)
+            .addComponent(blackAdvantage, GroupLayout.DEFAULT_SIZE, 25, Short.MAX_VALUE)
         );
 
         whiteAdvantagePane.setPreferredSize(new Dimension(235, 25));
 
+        whiteAdvantage.setFont(new Font("Verdana", 0, 11)); // NOI18N
+
         GroupLayout whiteAdvantagePaneLayout = new GroupLayout(whiteAdvantagePane);
         whiteAdvantagePane.setLayout(whiteAdvantagePaneLayout);
         whiteAdvantagePaneLayout.setHorizontalGroup(
             whiteAdvantagePaneLayout.createParallelGroup(GroupLayout.Alignment.LEADING)
-            .addGap(0, 0, Short.MAX_VALUE)
+            .addComponent(whiteAdvantage, GroupLayout.DEFAULT_SIZE, GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
         );
         whiteAdvantagePaneLayout.setVerticalGroup(
             whiteAdvantagePaneLayout.createParallelGroup(GroupLayout.Alignment.LEADING)
-            .addGap(0, 25, Short.MAX_VALUE)
+            .addComponent(whiteAdvantage, GroupLayout.DEFAULT_SIZE, 25, Short.MAX_VALUE)
         );
 
         chatPanel.setBorder(BorderFactory.createLineBorder(new Color(203, 203, 203), 2));
@@ -700,6 +706,8 @@ public class ChessFrame extends JFrame {
                 theirTime.setBackground(getBackground());
                 break;
         }
+        showAdvantage(temp);
+        showComputer(temp);
         /*if(temp.getPerspective()) {
             if(temp.getCurrentPlayer()) {
                 yourTime.setBackground(new Color(255, 240, 118));
@@ -719,6 +727,36 @@ public class ChessFrame extends JFrame {
         }*/
     }
     
+    /**
+     * Shows how far ahead in material the side that is ahead is
+     * @param cb the current state of the chess game
+     */
+    private void showAdvantage(ChessBoard cb) {
+        // setActivePlayer is called over and over, so only redo the labels when the material changes
+        long material = cb.getMaterialKey();
+        if(material == shownMaterial) return;
+        shownMaterial = material;
+        int advantage = cb.materialValue(true) - cb.materialValue(false);
+        whiteAdvantage.setText((advantage > 0)?"+" + advantage:"");
+        blackAdvantage.setText((advantage < 0)?"+" + -advantage:"");
+    }
+    
+    /**
+     * The material signature the advantage labels were last shown for
+     */
+    private long shownMaterial = -1L;
+    
+    /**
+     * Shows how deep and how fast the computer player is thinking
+     * @param cb the current state of the chess game
+     */
+    private void showComputer(ChessBoard cb) {
+        ComputerPlayer computer = cb.getComputer();
+        String readout = (computer == null)?"":computer.getReadout();
+        if(readout.isEmpty()) readout = "Playing right now";
+        if(!readout.equals(playingStatus.getText())) playingStatus.setText(readout);
+    }
+    
     /**
      * Runs this ChessFrame and creates a new instance
      * @return A ChessFrame
@@ -759,6 +797,10 @@ public class ChessFrame extends JFrame {
      * The JPanel with black's advantage.
      */
     private JPanel blackAdvantagePane;
+    /**
+     * Black's material advantage.
+     */
+    private JLabel blackAdvantage;
     /**
      * Black's name.
      */
@@ -915,6 +957,10 @@ public class ChessFrame extends JFrame {
      * The JPanel with white's advantage.
      */
     private JPanel whiteAdvantagePane;
+    /**
+     * White's material advantage.
+     */
+    private JLabel whiteAdvantage;
     /**
      * White's name.
      */
@@ -1,5 +1,6 @@
 package offlinechess;
 
+import java.awt.EventQueue;
 import java.io.File;
 import java.io.IOException;
 import java.util.LinkedList;
@@ -13,7 +14,9 @@ import java.util.regex.Pattern;
 public class ChessMain {
     
     /**
-     * The Main Method
+     * The Main Method<br>
+     * Usage: <code>ChessMain [computer]</code><br>
+     * "computer" has the computer play the side the player cannot move
      * @param args the command line arguments
      * @throws java.io.IOException stuff happens with the file
      * @throws java.lang.InterruptedException if interrupted
@@ -21,6 +24,11 @@ public class ChessMain {
     public static void main(String[] args) throws IOException, InterruptedException {
         //System.out.println(Encryption.writableEncrypt("nargles", "Leftist_Tachyon"));
         ChessFrame cf = ChessFrame.run();
+        if(args.length > 0 && args[0].equals("computer")) {
+            ChessBoard cb = cf.getChessPanel().getChessBoard();
+            // the computer moves on the board, so it is started on the same thread as the player
+            EventQueue.invokeLater(() -> cb.setComputer(new ComputerPlayer()));
+        }
         Scanner input = new Scanner(new File("src/userdata/users.cpd"));
         DataLogger dl = new DataLogger(new File("src/userdata/users.cpd"));
         LinkedList<User> users = new LinkedList<>();
@@ -31,6 +39,8 @@ public class ChessMain {
         while(cf.isVisible()) {
             dl.appendAll(users);
             cf.setActivePlayer();
+            // the labels only have to keep up with the screen, not update thousands of times a second
+            Thread.sleep(10);
         }
         cf.stop();
         dl.appendAll(users);
@@ -108,9 +108,11 @@ public class ChessPanel extends JPanel {
     
     /**
      * Determines where the mouse currently is
-     * @return A point representing the mouse's position
+     * @return A point representing the mouse's position, 
+     * or null if there is no panel (such as when running headless)
      */
     public static Point getMouseCoordinates() {
+        if(_this == null) return null;
         return _this.getMousePosition();
     }
     
@@ -123,11 +125,11 @@ public class ChessPanel extends JPanel {
             public void run() {
                 while(!stop) {
                     repaint();
-                    /*try {
+                    try {
                         Thread.sleep(1);
                     } catch (InterruptedException ex) {
                         ex.printStackTrace();
-                    }*/
+                    }
                 }
                 System.out.println("Thread stopped!");
             }
@@ -139,6 +141,7 @@ public class ChessPanel extends JPanel {
      */
     public void stop() {
         stop = true;
+        if(cb.getComputer() != null) cb.getComputer().stop();
         cb.printMoves();
     }
     
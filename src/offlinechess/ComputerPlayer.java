@@ -0,0 +1,165 @@
+package offlinechess;
+
+import java.awt.EventQueue;
+
+/**
+ * Plays the side of a ChessBoard that the player cannot move.<br>
+ * <br>
+ * The engine thinks on its own thread, on a copy of the board, so the
+ * board keeps being drawn while it does. The move it finds is played on
+ * the event dispatch thread, the same way a move by the player is, so it
+ * is recorded and checked for mate like any other.
+ * @author Jed Wang
+ */
+public class ComputerPlayer {
+
+    /**
+     * How long to think about a move by default, in milliseconds
+     */
+    public static final long DEFAULT_MOVE_TIME = 1000;
+
+    /**
+     * The engine that finds the moves
+     */
+    private final Engine engine;
+
+    /**
+     * How long to think about a move, in milliseconds
+     */
+    private final long moveTime;
+
+    /**
+     * The thread that is thinking, or null if none is
+     */
+    private volatile Thread thinking = null;
+
+    /**
+     * Whether this player has stopped playing
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Creates a ComputerPlayer that thinks for the default time
+     */
+    public ComputerPlayer() {
+        this(DEFAULT_MOVE_TIME);
+    }
+
+    /**
+     * Creates a ComputerPlayer
+     * @param moveTime how long to think about a move, in milliseconds
+     */
+    public ComputerPlayer(long moveTime) {
+        this(moveTime, TranspositionTable.DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Creates a ComputerPlayer with a transposition table of a given size, 
+     * which thinks on one thread
+     * @param moveTime how long to think about a move, in milliseconds
+     * @param hashMB how many megabytes the transposition table may use
+     */
+    public ComputerPlayer(long moveTime, int hashMB) {
+        this(moveTime, hashMB, 1);
+    }
+
+    /**
+     * Creates a ComputerPlayer.<br>
+     * More than one thread searches with Lazy SMP, 
+     * which takes processors from the rest of the program
+     * @param moveTime how long to think about a move, in milliseconds
+     * @param hashMB how many megabytes the transposition table may use
+     * @param threads how many threads to think on
+     */
+    public ComputerPlayer(long moveTime, int hashMB, int threads) {
+        if(moveTime < 1) throw new IllegalArgumentException("Invalid move time: " + moveTime);
+        this.moveTime = moveTime;
+        engine = new Engine(new TranspositionTable(hashMB), threads);
+    }
+
+    /**
+     * Determines whether it is this player's turn on a board
+     * @param cb the board
+     * @return whether the side to move cannot be moved by the player
+     */
+    public static boolean isComputerTurn(ChessBoard cb) {
+        switch(cb.getManipulable()) {
+            case ChessBoard.WHITE_MANIPULABLE:
+                return !cb.getCurrentPlayer();
+            case ChessBoard.BLACK_MANIPULABLE:
+                return cb.getCurrentPlayer();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Starts thinking about a move if it is this player's turn
+     * and the game is not over.<br>
+     * Call it on the thread that moves on the board
+     * @param cb the board to play on
+     */
+    public synchronized void play(ChessBoard cb) {
+        if(stopped || thinking != null || !isComputerTurn(cb)) return;
+        boolean isWhite = cb.getCurrentPlayer();
+        if(!cb.hasAnyLegalMove(isWhite) || cb.isDraw(isWhite)) return;
+        // the board is copied here, since the player's side keeps drawing and changing it
+        final Position root = new Position(cb);
+        final long key = cb.getKey();
+        thinking = new Thread("Computer player") {
+            @Override
+            public void run() {
+                int move = engine.search(root, Engine.MAX_PLY, moveTime);
+                synchronized(ComputerPlayer.this) {
+                    thinking = null;
+                }
+                if(stopped || move == Move.NONE) return;
+                EventQueue.invokeLater(() -> {
+                    // the game may have been reset in the meantime
+                    if(cb.getKey() == key && isComputerTurn(cb)) playMove(cb, move);
+                });
+            }
+        };
+        thinking.setDaemon(true);
+        thinking.start();
+    }
+
+    /**
+     * Plays a move on a board
+     * @param cb the board
+     * @param move the move (See: <code>Move</code>)
+     */
+    private static void playMove(ChessBoard cb, int move) {
+        String from = Bitboard.toSquare(Move.getFrom(move)), to = Bitboard.toSquare(Move.getTo(move));
+        if(Move.isPromotion(move)) cb.promotePiece(from, to, Move.getPromotion(move));
+        else cb.movePiece(from, to);
+    }
+
+    /**
+     * Stops thinking without playing a move, and stops playing
+     */
+    public void stop() {
+        stopped = true;
+        engine.stop();
+        engine.shutdown();
+    }
+
+    /**
+     * Determines whether this player is thinking
+     * @return whether this player is thinking
+     */
+    public boolean isThinking() {
+        return thinking != null;
+    }
+
+    /**
+     * Describes how deep and how fast this player is thinking, or last thought
+     * @return the depth and nodes per second of the search
+     */
+    public String getReadout() {
+        if(engine.getNodes() == 0) return (isThinking())?"Computer thinking":"";
+        return ((isThinking())?"Computer thinking":"Computer")
+                + " • depth " + engine.getDepth()
+                + " • " + engine.getNodesPerSecond() / 1000 + " kN/s";
+    }
+}
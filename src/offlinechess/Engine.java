@@ -0,0 +1,744 @@
+package offlinechess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Searches for the best move with negamax alpha-beta.<br>
+ * <br>
+ * The search deepens one move at a time until it runs out of time, and
+ * each depth tries the best line of the one before it first. Captures are
+ * searched past the last depth until the position is quiet. What each
+ * position searched is worth is kept in a TranspositionTable, which saves
+ * searching it again when other moves lead to it. The moves of each ply
+ * come from a MovePicker made once for that ply, and are made and taken
+ * back on one copy of the position, so nothing is allocated while it
+ * searches.<br>
+ * An Engine may search on several threads that share the table (Lazy SMP).
+ * It searches one position at a time; it may be asked to stop, or told
+ * that the move it pondered on was played, from another thread.
+ * @author Jed Wang
+ */
+public class Engine {
+
+    /**
+     * The most moves deep the search can go, counting captures and checks
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The score of checkmating right away.<br>
+     * Mates further away score less, by a point for each move
+     */
+    public static final int MATE = 30000;
+
+    /**
+     * A score beyond any real score
+     */
+    private static final int INFINITY = MATE + 1;
+
+    /**
+     * How many nodes are searched between looks at the clock, less one
+     */
+    private static final int CHECK_INTERVAL = (1 << 11) - 1;
+
+    /**
+     * How many depths each helper searches in a row,
+     * and then skips in a row, by the helper
+     */
+    private static final int[] SKIP_SIZES = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+
+    /**
+     * How far into its first block of depths each helper starts, by the helper
+     */
+    private static final int[] SKIP_PHASES = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * No killer moves, for the captures past the last depth
+     */
+    private static final int[] NO_KILLERS = {Move.NONE, Move.NONE};
+
+    /**
+     * How high a history entry may get before they are all halved
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    /**
+     * What earlier searches found, which may be shared with other engines
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The position being searched
+     */
+    private Position cb;
+
+    /**
+     * The move picker of each ply
+     */
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+
+    /**
+     * The two latest quiet moves to cut off at each ply
+     */
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    /**
+     * How often each quiet move has cut off, weighted by depth
+     * (See: <code>MovePicker.historyIndex</code>)
+     */
+    private final int[] history = new int[MovePicker.HISTORY_SIZE];
+
+    /**
+     * The best line found from each ply, in a triangle
+     */
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+
+    /**
+     * How far each ply's line in pvTable reaches
+     */
+    private final int[] pvLength = new int[MAX_PLY];
+
+    /**
+     * The best line of the last depth that was finished
+     */
+    private final int[] pv = new int[MAX_PLY];
+
+    /**
+     * How many moves long pv is
+     */
+    private int pvSize;
+
+    /**
+     * Whether the search is still on the last depth's best line
+     */
+    private boolean followingPV;
+
+    /**
+     * How many nodes have been searched
+     */
+    private long nodes;
+
+    /**
+     * When to stop searching, and when not to start another depth,
+     * by <code>System.nanoTime</code>
+     */
+    private volatile long deadline, softDeadline;
+
+    /**
+     * How long to search for once a ponder is hit, in milliseconds
+     */
+    private volatile long moveTime;
+
+    /**
+     * Whether the search is pondering, and so has no time limit yet
+     */
+    private volatile boolean pondering;
+
+    /**
+     * Whether the current search has been cut short
+     */
+    private boolean aborted;
+
+    /**
+     * Whether another thread has asked the search to stop
+     */
+    private volatile boolean stopped;
+
+    /**
+     * How many nodes had been searched when the clock was last looked at
+     */
+    private volatile long reportedNodes;
+
+    /**
+     * When the search started and ended, by <code>System.nanoTime</code>
+     */
+    private volatile long startTime, endTime;
+
+    /**
+     * The deepest finished depth and its score
+     */
+    private volatile int depth, score;
+
+    /**
+     * Where to print a line after each depth, or null
+     */
+    private PrintStream info = null;
+
+    /**
+     * The engines that search alongside this one, sharing its table
+     */
+    private final Engine[] helpers;
+
+    /**
+     * The threads the helpers search on, or null if there are no helpers
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Which helper this is, or 0 if it is not one
+     */
+    private final int helperIndex;
+
+    /**
+     * Creates an Engine with a transposition table of its own, of the default size
+     */
+    public Engine() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * Creates an Engine that searches on one thread
+     * @param table the transposition table to use
+     */
+    public Engine(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    /**
+     * Creates an Engine that searches on several threads (Lazy SMP).<br>
+     * Each thread searches the whole tree on its own, skipping some depths 
+     * so they are not all on the same one, and they share what they find 
+     * through the table. The thread that calls search is one of them, and 
+     * its move is the one played
+     * @param table the transposition table to share
+     * @param threads how many threads to search on
+     */
+    public Engine(TranspositionTable table, int threads) {
+        if(threads < 1) throw new IllegalArgumentException("Invalid thread count: " + threads);
+        this.table = table;
+        helperIndex = 0;
+        createPickers();
+        helpers = new Engine[threads - 1];
+        for(int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Engine(i + 1, table);
+        }
+        pool = (threads > 1)?new ForkJoinPool(threads - 1):null;
+    }
+
+    /**
+     * Creates a helper
+     * @param helperIndex which helper this is, from 1
+     * @param table the transposition table to share
+     */
+    private Engine(int helperIndex, TranspositionTable table) {
+        this.table = table;
+        this.helperIndex = helperIndex;
+        createPickers();
+        helpers = new Engine[0];
+        pool = null;
+    }
+
+    /**
+     * Creates the move picker of each ply, which share the history table
+     */
+    private void createPickers() {
+        for(int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker(history);
+        }
+    }
+
+    /**
+     * Sets whether to order moves by MVV-LVA, killer moves and history.<br>
+     * If not, the moves after the hash move are searched in the order they 
+     * are generated, which is only useful to see what the ordering saves
+     * @param ordered whether to order the moves
+     */
+    public void setMoveOrdering(boolean ordered) {
+        for(MovePicker picker : pickers) {
+            picker.setOrdered(ordered);
+        }
+        for(Engine helper : helpers) {
+            helper.setMoveOrdering(ordered);
+        }
+    }
+
+    /**
+     * Forgets the history table and killer moves of this engine and 
+     * its helpers, as for a new game.<br>
+     * Otherwise each search orders its moves by what the ones before it 
+     * learned. Call it only while the engine is not searching
+     */
+    public void clearHistory() {
+        Arrays.fill(history, 0);
+        for(int[] killer : killers) {
+            killer[0] = killer[1] = Move.NONE;
+        }
+        for(Engine helper : helpers) {
+            helper.clearHistory();
+        }
+    }
+
+    /**
+     * Searches a position until a depth is reached or time runs out
+     * @param root the position to search, which is left as it was
+     * @param maxDepth the deepest to search, in moves
+     * @param millis how many milliseconds to search for, or 0 for no limit
+     * @return the best move found (See: <code>Move</code>),
+     * or <code>Move.NONE</code> if there are no legal moves
+     */
+    public int search(Position root, int maxDepth, long millis) {
+        return search(root, maxDepth, millis, false);
+    }
+
+    /**
+     * Searches a position until a depth is reached or time runs out, 
+     * or until stopped.<br>
+     * When pondering, the time only starts running once ponderhit is 
+     * called, and the search does not return before that or stop, 
+     * even if it has reached the depth
+     * @param root the position to search, which is left as it was
+     * @param maxDepth the deepest to search, in moves
+     * @param millis how many milliseconds to search for, or 0 for no limit
+     * @param ponder whether to ponder
+     * @return the best move found (See: <code>Move</code>),
+     * or <code>Move.NONE</code> if there are no legal moves
+     */
+    public int search(Position root, int maxDepth, long millis, boolean ponder) {
+        if(maxDepth < 1) throw new IllegalArgumentException("Depth must be at least 1");
+        if(helperIndex != 0) throw new IllegalStateException("Helpers are run by their engine");
+        maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+        table.newSearch();
+        moveTime = millis;
+        pondering = ponder;
+        prepare(root);
+        if(ponder) {
+            deadline = softDeadline = Long.MAX_VALUE;
+        } else {
+            setDeadlines(startTime);
+        }
+
+        // the helpers are made ready here, so a stop cannot come before they start
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[helpers.length];
+        for(int i = 0; i < helpers.length; i++) {
+            Engine helper = helpers[i];
+            helper.prepare(root);
+            final int helperDepth = maxDepth;
+            tasks[i] = pool.submit(() -> helper.iterate(helperDepth));
+        }
+        int bestMove = iterate(maxDepth);
+        synchronized(this) {
+            while(pondering && !stopped) {
+                try {
+                    wait();
+                } catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        for(Engine helper : helpers) {
+            helper.stop();
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        endTime = System.nanoTime();
+        return bestMove;
+    }
+
+    /**
+     * Gets ready to search a position.<br>
+     * Called on the thread that starts the search, 
+     * since the caller may change the position afterwards
+     * @param root the position to search
+     */
+    private void prepare(Position root) {
+        cb = new Position(root);
+        nodes = 0;
+        reportedNodes = 0;
+        aborted = false;
+        stopped = false;
+        pvSize = 0;
+        depth = 0;
+        score = 0;
+        startTime = System.nanoTime();
+        endTime = 0;
+        deadline = softDeadline = Long.MAX_VALUE;
+        for(int[] killer : killers) {
+            killer[0] = killer[1] = Move.NONE;
+        }
+        // what cut off in the last position is less sure to in this one
+        ageHistory();
+    }
+
+    /**
+     * Sets when to stop searching from the move time
+     * @param from when the time started running, by <code>System.nanoTime</code>
+     */
+    private void setDeadlines(long from) {
+        long millis = moveTime;
+        if(millis <= 0) {
+            deadline = softDeadline = Long.MAX_VALUE;
+        } else {
+            // the next depth takes longer than all of the ones before it
+            softDeadline = from + millis * 500000;
+            deadline = from + millis * 1000000;
+        }
+    }
+
+    /**
+     * Deepens the search one depth at a time
+     * @param maxDepth the deepest to search, in moves
+     * @return the best move found
+     */
+    private int iterate(int maxDepth) {
+        int[] rootMoves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(cb, cb.getCurrentPlayer(), rootMoves, 0);
+        int bestMove = (count == 0)?Move.NONE:rootMoves[0];
+        for(int d = 1; d <= maxDepth && count > 0; d++) {
+            if(helperIndex != 0) {
+                int skip = (helperIndex - 1) % SKIP_SIZES.length;
+                if(((d + SKIP_PHASES[skip]) / SKIP_SIZES[skip]) % 2 != 0) continue;
+            }
+            followingPV = true;
+            int result = search(d, -INFINITY, INFINITY, 0);
+            if(aborted) {
+                // the last best move is searched first, so anything found since beats it
+                if(pvLength[0] > 0) bestMove = pvTable[0][0];
+                break;
+            }
+            bestMove = pvTable[0][0];
+            pvSize = pvLength[0];
+            System.arraycopy(pvTable[0], 0, pv, 0, pvSize);
+            score = result;
+            depth = d;
+            reportedNodes = nodes;
+            printInfo();
+            // a forced mate does not change deeper down
+            if(Math.abs(result) >= MATE - MAX_PLY) break;
+            if(System.nanoTime() > softDeadline) break;
+        }
+        reportedNodes = nodes;
+        return bestMove;
+    }
+
+    /**
+     * Searches the current position
+     * @param depth how many more moves to search before looking only at captures
+     * @param alpha the score the side to move already has elsewhere
+     * @param beta the score the other side already has elsewhere
+     * @param ply how many moves from the root the position is
+     * @return the score for the side to move,
+     * which only bounds the real score if it is not between alpha and beta
+     */
+    private int search(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if(ply > 0 && (cb.repetitions() > 1 || cb.is50MoveDraw() || cb.insufficientMaterial())) return 0;
+        boolean isWhite = cb.getCurrentPlayer();
+        boolean inCheck = cb.inCheck(isWhite);
+        // a check is never the last move looked at
+        if(inCheck) depth++;
+        if(depth <= 0) return quiesce(alpha, beta, ply);
+        if(ply >= MAX_PLY - 1) return Evaluation.evaluate(cb);
+        countNode();
+
+        long entry = table.probe(cb.getKey());
+        int hashMove = TranspositionTable.move(entry);
+        // cutting off on the best line would cut the line short
+        if(entry != 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+            int stored = TranspositionTable.score(entry, ply);
+            int bound = TranspositionTable.bound(entry);
+            if(bound == TranspositionTable.EXACT 
+                    || (bound == TranspositionTable.LOWER && stored >= beta) 
+                    || (bound == TranspositionTable.UPPER && stored <= alpha)) return stored;
+        }
+
+        int pvMove = Move.NONE;
+        if(followingPV) {
+            if(ply < pvSize) pvMove = pv[ply];
+            else followingPV = false;
+        }
+        MovePicker picker = pickers[ply];
+        picker.start(cb, (pvMove != Move.NONE)?pvMove:hashMove, killers[ply], true);
+
+        int best = -INFINITY, bestMove = Move.NONE, originalAlpha = alpha, searched = 0;
+        for(int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            cb.makeMove(move);
+            int result;
+            if(searched++ == 0) {
+                result = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                // prove the move is no better than the first, and only search it fully if it is
+                result = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if(result > alpha && result < beta) result = -search(depth - 1, -beta, -alpha, ply + 1);
+            }
+            cb.unmakeMove();
+            // only the first move searched can be on the last depth's best line
+            followingPV = false;
+            if(aborted) return 0;
+            if(result > best) {
+                best = result;
+                if(result > alpha) {
+                    alpha = result;
+                    bestMove = move;
+                    updatePV(ply, move);
+                    if(result >= beta) {
+                        if(!Move.isCapture(move) && !Move.isPromotion(move)) cutOff(isWhite, move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+        if(searched == 0) return (inCheck)?-MATE + ply:0;
+        int bound = (best >= beta)?TranspositionTable.LOWER:
+                (best > originalAlpha)?TranspositionTable.EXACT:TranspositionTable.UPPER;
+        table.store(cb.getKey(), bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    /**
+     * Remembers a quiet move that cut off, as a killer move of its ply 
+     * and in the history table
+     * @param isWhite whether the side that made the move is white
+     * @param move the move
+     * @param depth how deep the move was searched
+     * @param ply how many moves from the root the position is
+     */
+    private void cutOff(boolean isWhite, int move, int depth, int ply) {
+        int[] killer = killers[ply];
+        if(killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int index = MovePicker.historyIndex(isWhite, move);
+        if((history[index] += depth * depth) > HISTORY_LIMIT) ageHistory();
+    }
+
+    /**
+     * Halves every entry of the history table
+     */
+    private void ageHistory() {
+        for(int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Searches captures and promotions until the position is quiet,
+     * or every move when in check
+     * @param alpha the score the side to move already has elsewhere
+     * @param beta the score the other side already has elsewhere
+     * @param ply how many moves from the root the position is
+     * @return the score for the side to move,
+     * which only bounds the real score if it is not between alpha and beta
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        countNode();
+        boolean isWhite = cb.getCurrentPlayer();
+        boolean inCheck = cb.inCheck(isWhite);
+        if(ply >= MAX_PLY - 1) return Evaluation.evaluate(cb);
+        int best = -INFINITY;
+        if(!inCheck) {
+            // the side to move does not have to capture
+            best = Evaluation.evaluate(cb);
+            if(best >= beta) return best;
+            if(best > alpha) alpha = best;
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.start(cb, Move.NONE, NO_KILLERS, inCheck);
+        for(int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            cb.makeMove(move);
+            int result = -quiesce(-beta, -alpha, ply + 1);
+            cb.unmakeMove();
+            if(aborted) return 0;
+            if(result > best) {
+                best = result;
+                if(result > alpha) {
+                    alpha = result;
+                    if(result >= beta) break;
+                }
+            }
+        }
+        if(picker.getLegalCount() == 0) return (inCheck)?-MATE + ply:0;
+        return best;
+    }
+
+    /**
+     * Makes a move the start of a ply's best line,
+     * followed by the best line after it
+     * @param ply how many moves from the root the position is
+     * @param move the best move
+     */
+    private void updatePV(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, line, ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    /**
+     * Counts a node, and every so often checks whether to stop
+     */
+    private void countNode() {
+        if((++nodes & CHECK_INTERVAL) == 0) {
+            reportedNodes = nodes;
+            if(stopped || System.nanoTime() >= deadline) aborted = true;
+        }
+    }
+
+    /**
+     * Prints the last finished depth, if there is somewhere to print it
+     */
+    private void printInfo() {
+        if(info == null) return;
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if(Math.abs(score) >= MATE - MAX_PLY) {
+            int plies = MATE - Math.abs(score);
+            sb.append(" mate ").append((score > 0)?(plies + 1) / 2:-(plies / 2));
+        } else {
+            sb.append(" cp ").append(score);
+        }
+        sb.append(" nodes ").append(getNodes());
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" hashfull ").append(table.hashfull());
+        sb.append(" time ").append(getElapsed());
+        sb.append(" pv");
+        for(int i = 0; i < pvSize; i++) {
+            sb.append(' ').append(Move.toString(pv[i]));
+        }
+        info.println(sb);
+    }
+
+    /**
+     * Asks the search to stop as soon as it can, 
+     * and to return its move even if it is pondering.<br>
+     * May be called from any thread
+     */
+    public synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    /**
+     * Tells a pondering search that the move it pondered on was played, 
+     * so its time starts running now.<br>
+     * May be called from any thread
+     */
+    public synchronized void ponderhit() {
+        if(!pondering) return;
+        setDeadlines(System.nanoTime());
+        pondering = false;
+        notifyAll();
+    }
+
+    /**
+     * Lets the helpers' threads end.<br>
+     * The engine cannot search on more than one thread afterwards
+     */
+    public void shutdown() {
+        if(pool != null) pool.shutdown();
+    }
+
+    /**
+     * Returns how many threads the engine searches on
+     * @return how many threads the engine searches on
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Sets where to print a line after each depth is finished
+     * @param info where to print, or null not to print
+     */
+    public void setInfo(PrintStream info) {
+        this.info = info;
+    }
+
+    /**
+     * Returns how many nodes have been searched, on every thread.<br>
+     * While searching, this is only updated every so often
+     * @return how many nodes have been searched
+     */
+    public long getNodes() {
+        long output = reportedNodes;
+        for(Engine helper : helpers) {
+            output += helper.getNodes();
+        }
+        return output;
+    }
+
+    /**
+     * Returns the deepest depth that was finished
+     * @return the deepest depth that was finished
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the score of the deepest depth that was finished
+     * @return the score in centipawns for the side to move at the root,
+     * or near <code>MATE</code> if there is a forced mate
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the best line of the deepest depth that was finished
+     * @return the moves of the line (See: <code>Move</code>)
+     */
+    public int[] getPV() {
+        int[] output = new int[pvSize];
+        System.arraycopy(pv, 0, output, 0, pvSize);
+        return output;
+    }
+
+    /**
+     * Returns how long the search took, or has taken so far
+     * @return how many milliseconds the search took
+     */
+    public long getElapsed() {
+        long end = endTime;
+        return (((end == 0)?System.nanoTime():end) - startTime) / 1000000;
+    }
+
+    /**
+     * Returns how fast the search went, or is going
+     * @return how many nodes were searched a second
+     */
+    public long getNodesPerSecond() {
+        return getNodes() * 1000 / Math.max(1, getElapsed());
+    }
+
+    /**
+     * Searches a position and prints each depth.<br>
+     * Usage: <code>Engine millis [depth] [threads] [hashMB] ["fen"]</code><br>
+     * depth defaults to as deep as it can; threads defaults to 1; 
+     * the transposition table's size is given with a unit, such as 256MB, 
+     * and defaults to 16MB; the FEN defaults to the starting position
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if(args.length < 1) {
+            System.err.println("Usage: Engine millis [depth] [threads] [hashMB] [\"fen\"]");
+            System.exit(1);
+        }
+        long millis = Long.parseLong(args[0]);
+        int maxDepth = MAX_PLY, threads = 1, numbers = 0;
+        int hashMB = TranspositionTable.DEFAULT_SIZE_MB;
+        String fen = Position.START_FEN;
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].indexOf('/') != -1) fen = args[i];
+            else if(args[i].endsWith("MB")) hashMB = Integer.parseInt(args[i].substring(0, args[i].length() - 2));
+            else if(numbers++ == 0) maxDepth = Integer.parseInt(args[i]);
+            else threads = Integer.parseInt(args[i]);
+        }
+        Engine engine = new Engine(new TranspositionTable(hashMB), threads);
+        engine.setInfo(System.out);
+        int move = engine.search(new Position(fen), maxDepth, millis);
+        System.out.println("bestmove " + ((move == Move.NONE)?"(none)":Move.toString(move)));
+        System.out.println("Nodes: " + engine.getNodes());
+        System.out.println("Time: " + engine.getElapsed() + " ms");
+        System.out.println("Nodes per second: " + engine.getNodesPerSecond());
+        engine.shutdown();
+    }
+}
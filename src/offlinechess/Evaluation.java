@@ -0,0 +1,182 @@
+package offlinechess;
+
+/**
+ * Scores a position for the search.<br>
+ * <br>
+ * Each piece is worth its material plus a bonus for its square, read from
+ * one table per piece that already holds both. The king has one table for
+ * the middlegame and one for the endgame, blended by how much material is
+ * left. Everything is read off the bitboards, so no square is visited twice.
+ * @author Jed Wang
+ */
+public final class Evaluation {
+
+    /**
+     * What each kind of piece is worth in centipawns, by the number
+     */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    /**
+     * The phase of the starting position, which has all of its pieces
+     */
+    private static final int MAX_PHASE = 24;
+
+    /**
+     * How much each kind of piece counts towards the phase, by the number
+     */
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+    /**
+     * The bonuses for each piece on each square, from white's side,
+     * with a8 first
+     */
+    private static final int[][] SQUARE_BONUSES = {
+        { // PAWN
+             0,   0,   0,   0,   0,   0,   0,   0,
+            50,  50,  50,  50,  50,  50,  50,  50,
+            10,  10,  20,  30,  30,  20,  10,  10,
+             5,   5,  10,  25,  25,  10,   5,   5,
+             0,   0,   0,  20,  20,   0,   0,   0,
+             5,  -5, -10,   0,   0, -10,  -5,   5,
+             5,  10,  10, -20, -20,  10,  10,   5,
+             0,   0,   0,   0,   0,   0,   0,   0
+        }, { // KNIGHT
+           -50, -40, -30, -30, -30, -30, -40, -50,
+           -40, -20,   0,   0,   0,   0, -20, -40,
+           -30,   0,  10,  15,  15,  10,   0, -30,
+           -30,   5,  15,  20,  20,  15,   5, -30,
+           -30,   0,  15,  20,  20,  15,   0, -30,
+           -30,   5,  10,  15,  15,  10,   5, -30,
+           -40, -20,   0,   5,   5,   0, -20, -40,
+           -50, -40, -30, -30, -30, -30, -40, -50
+        }, { // BISHOP
+           -20, -10, -10, -10, -10, -10, -10, -20,
+           -10,   0,   0,   0,   0,   0,   0, -10,
+           -10,   0,   5,  10,  10,   5,   0, -10,
+           -10,   5,   5,  10,  10,   5,   5, -10,
+           -10,   0,  10,  10,  10,  10,   0, -10,
+           -10,  10,  10,  10,  10,  10,  10, -10,
+           -10,   5,   0,   0,   0,   0,   5, -10,
+           -20, -10, -10, -10, -10, -10, -10, -20
+        }, { // ROOK
+             0,   0,   0,   0,   0,   0,   0,   0,
+             5,  10,  10,  10,  10,  10,  10,   5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+             0,   0,   0,   5,   5,   0,   0,   0
+        }, { // QUEEN
+           -20, -10, -10,  -5,  -5, -10, -10, -20,
+           -10,   0,   0,   0,   0,   0,   0, -10,
+           -10,   0,   5,   5,   5,   5,   0, -10,
+            -5,   0,   5,   5,   5,   5,   0,  -5,
+             0,   0,   5,   5,   5,   5,   0,  -5,
+           -10,   5,   5,   5,   5,   5,   0, -10,
+           -10,   0,   5,   0,   0,   0,   0, -10,
+           -20, -10, -10,  -5,  -5, -10, -10, -20
+        }, { // KING, in the middlegame
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -20, -30, -30, -40, -40, -30, -30, -20,
+           -10, -20, -20, -20, -20, -20, -20, -10,
+            20,  20,   0,   0,   0,   0,  20,  20,
+            20,  30,  10,   0,   0,  10,  30,  20
+        }
+    };
+
+    /**
+     * The bonuses for the king on each square in the endgame,
+     * from white's side, with a8 first
+     */
+    private static final int[] KING_ENDGAME = {
+           -50, -40, -30, -20, -20, -30, -40, -50,
+           -30, -20, -10,   0,   0, -10, -20, -30,
+           -30, -10,  20,  30,  30,  20, -10, -30,
+           -30, -10,  30,  40,  40,  30, -10, -30,
+           -30, -10,  30,  40,  40,  30, -10, -30,
+           -30, -10,  20,  30,  30,  20, -10, -30,
+           -30, -30,   0,   0,   0,   0, -30, -30,
+           -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * The material and square bonus of each piece on each square, by
+     * <code>Bitboard.pieceIndex * 64 + square</code>, from its own side
+     */
+    private static final int[] PIECE_SQUARES = new int[12 * 64];
+
+    /**
+     * The endgame bonus of each king on each square,
+     * by whether it is black and the square
+     */
+    private static final int[] KING_ENDGAME_SQUARES = new int[2 * 64];
+
+    /**
+     * static init
+     */
+    static {
+        for(int whichPiece = MoveRecorder.PAWN; whichPiece <= MoveRecorder.KING; whichPiece++) {
+            for(int square = 0; square < 64; square++) {
+                int value = PIECE_VALUES[whichPiece] + SQUARE_BONUSES[whichPiece][square];
+                PIECE_SQUARES[(Bitboard.pieceIndex(whichPiece, true) << 6) | square] = value;
+                // black's squares are white's turned upside down
+                PIECE_SQUARES[(Bitboard.pieceIndex(whichPiece, false) << 6) | (square ^ 56)] = value;
+            }
+        }
+        for(int square = 0; square < 64; square++) {
+            KING_ENDGAME_SQUARES[square] = KING_ENDGAME[square];
+            KING_ENDGAME_SQUARES[64 | (square ^ 56)] = KING_ENDGAME[square];
+        }
+    }
+
+    /**
+     * No instantiation.
+     */
+    private Evaluation() {}
+
+    /**
+     * Scores a position for the side to move
+     * @param cb the current state of the chess game
+     * @return the score in centipawns,
+     * positive if the side to move is better off
+     */
+    public static int evaluate(Position cb) {
+        int output = 0, phase = 0;
+        for(int whichPiece = MoveRecorder.PAWN; whichPiece < MoveRecorder.KING; whichPiece++) {
+            output += sum(cb, whichPiece, true) - sum(cb, whichPiece, false);
+            phase += PHASE_WEIGHTS[whichPiece]
+                    * Bitboard.count(cb.getBitboard(whichPiece, true) | cb.getBitboard(whichPiece, false));
+        }
+        phase = Math.min(phase, MAX_PHASE);
+
+        int whiteKing = cb.getKingSquare(true), blackKing = cb.getKingSquare(false);
+        int middlegame = PIECE_SQUARES[(Bitboard.pieceIndex(MoveRecorder.KING, true) << 6) | whiteKing]
+                - PIECE_SQUARES[(Bitboard.pieceIndex(MoveRecorder.KING, false) << 6) | blackKing];
+        int endgame = KING_ENDGAME_SQUARES[whiteKing] - KING_ENDGAME_SQUARES[64 | blackKing];
+        output += (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+
+        return (cb.getCurrentPlayer())?output:-output;
+    }
+
+    /**
+     * Adds up the material and square bonuses of one kind of piece
+     * @param cb the current state of the chess game
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the pieces are white
+     * @return the total, from the pieces' own side
+     */
+    private static int sum(Position cb, int whichPiece, boolean isWhite) {
+        int offset = Bitboard.pieceIndex(whichPiece, isWhite) << 6;
+        int output = 0;
+        long pieces = cb.getBitboard(whichPiece, isWhite);
+        while(pieces != 0) {
+            output += PIECE_SQUARES[offset | Bitboard.first(pieces)];
+            pieces &= pieces - 1;
+        }
+        return output;
+    }
+}
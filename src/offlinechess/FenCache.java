@@ -0,0 +1,56 @@
+package offlinechess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used positions parsed from Forsyth-Edwards Notation.<br>
+ * <br>
+ * Test suites and benchmarks load the same few positions over and over;
+ * with this they are parsed once and copied after that.
+ * @author Jed Wang
+ */
+public class FenCache {
+
+    /**
+     * The parsed positions, least recently used first
+     */
+    private final LinkedHashMap<String, Position> positions;
+
+    /**
+     * Creates a new FenCache
+     * @param capacity how many positions to keep
+     */
+    public FenCache(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        positions = new LinkedHashMap<String, Position>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Position> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of a position, parsing it if it is not kept
+     * @param fen the position in FEN
+     * @return a copy of the position, which the caller may change
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public synchronized Position get(String fen) {
+        Position output = positions.get(fen);
+        if(output == null) {
+            output = new Position(fen);
+            positions.put(fen, output);
+        }
+        return new Position(output);
+    }
+
+    /**
+     * Returns how many positions are kept
+     * @return how many positions are kept
+     */
+    public synchronized int size() {
+        return positions.size();
+    }
+}
@@ -12,158 +12,20 @@ import javax.imageio.ImageIO;
  * @author Jed Wang
  */
 public class King extends AbstractPiece {
-    
-    /**
-     * Whether this king has moved before - used to check castling
-     */
-    private boolean moved = false;
-    
-    /**
-     * Whether this king is in check - used to do castling
-     */
-    private boolean inCheck = false;
 
-    public King(boolean isWhite) {
+    King(boolean isWhite) {
         super(isWhite);
     }
 
     @Override
-    public LinkedList<String> allLegalMoves(ChessBoard cb, String currentPosition) {
-        if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
-        if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("K"))) throw new IllegalArgumentException("This isn\'t a king!");
-        LinkedList<String> output = new LinkedList<>();
-        String temp;
-        for(int i = -1; i <= 1; i++) {
-            for(int j = -1; j <= 1; j++) {
-                if(i == 0 && j == 0) continue;
-                if(ChessBoard.isValidShift(currentPosition, i, j)) {
-                    temp = ChessBoard.shiftSquare(currentPosition, i, j);
-                    if(ChessBoard.isValidSquare(temp)) {
-                        if(cb.isEmptySquare(temp)) {
-                            output.add(temp);
-                        } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                            output.add(temp);
-                        }
-                    }
-                }
-            }
-        }
+    public int allLegalMoves(Position cb, int from, int[] moves, int count) {
+        count = addMoves(cb, from, Attacks.kingAttacks(from) & ~cb.getOccupied(isWhite), moves, count);
         
         // CASTLING
-        if(!moved && !inCheck) {
-            // white on 7, black on 0
-            int row = (isWhite)?7:0;
-            
-            boolean canQ = true, canK = true;
-            for(int i = 0; i < cb.getBoard().length; i++) {
-                for(int j = 0; j < cb.getBoard()[i].length; j++) {
-                    AbstractPiece ap = cb.getPiece(i, j);
-                    if(ap == null) continue;
-                    if((ap.isWhite == isWhite) || (ap.getCharRepresentation().equals("K"))) continue;
-                    String fromWhere = ChessBoard.toSquare(i, j);
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(1, row)) || 
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(2, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(3, row))) {
-                        canQ = false;
-                    }
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(5, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(6, row))) {
-                        canK = false;
-                    }
-                }
-            }
-            // 1, 2, 3, Queenside
-            if(cb.isEmptySquare(1, row) && cb.isEmptySquare(2, row) && cb.isEmptySquare(3, row) && canQ) {
-                output.add(ChessBoard.shiftSquare(currentPosition, -2, 0));
-            }
-            // 5, 6, Kingside
-            if(cb.isEmptySquare(5, row) && cb.isEmptySquare(6, row) && canK) {
-                output.add(ChessBoard.shiftSquare(currentPosition, 2, 0));
-            }
-        }
-        return output;
+        if(from == cb.getKingSquare(isWhite)) count = MoveGenerator.castlingMoves(cb, isWhite, moves, count);
+        return count;
     }
 
-    @Override
-    public LinkedList<String> legalCaptures(ChessBoard cb, String currentPosition) {
-        return allLegalMoves(cb, currentPosition);
-    }
-    
-    /**
-     * Notifies this king that it is in check.
-     */
-    public void notifyCheck() {
-        inCheck = true;
-    }
-    
-    /**
-     * Determines what moves are necessary
-     * @param cb the current state of the game
-     * @param currentPosition where the piece currently is
-     * @param includeOtherKing whether to discount the other's king
-     * @return all King moves discounting the other's king or not
-     * @deprecated not needed anymore
-     */
-    @Deprecated
-    private LinkedList<String> moves(ChessBoard cb, String currentPosition) {
-        /*
-        if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
-        if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("K"))) throw new IllegalArgumentException("This isn\'t a king!");
-        LinkedList<String> output = new LinkedList<>();
-        String temp;
-        for(int i = -1; i <= 1; i++) {
-            for(int j = -1; j <= 1; j++) {
-                if(i == 0 && j == 0) continue;
-                if(ChessBoard.isValidShift(currentPosition, i, j)) {
-                    temp = ChessBoard.shiftSquare(currentPosition, i, j);
-                    if(ChessBoard.isValidSquare(temp)) {
-                        if(cb.isEmptySquare(temp)) {
-                            output.add(temp);
-                        } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                            output.add(temp);
-                        }
-                    }
-                }
-            }
-        }
-        
-        // CASTLING
-        if(!moved) {
-            // white on 7, black on 0
-            int row = (isWhite)?7:0;
-            
-            boolean canQ = true, canK = true;
-            for(int i = 0; i < cb.getBoard().length; i++) {
-                for(int j = 0; j < cb.getBoard()[i].length; j++) {
-                    AbstractPiece ap = cb.getPiece(i, j);
-                    if(ap == null) continue;
-                    if((ap.isWhite == isWhite) || (ap.getCharRepresentation().equals("K"))) continue;
-                    String fromWhere = ChessBoard.toSquare(i, j);
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(1, row)) || 
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(2, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(3, row))) {
-                        canQ = false;
-                    }
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(5, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(6, row))) {
-                        canK = false;
-                    }
-                }
-            }
-            // 1, 2, 3, Queenside
-            if(cb.isEmptySquare(1, row) && cb.isEmptySquare(2, row) && cb.isEmptySquare(3, row) && canQ) {
-                output.add(ChessBoard.shiftSquare(currentPosition, -2, 0));
-            }
-            // 5, 6, Kingside
-            if(cb.isEmptySquare(5, row) && cb.isEmptySquare(6, row) && canK) {
-                output.add(ChessBoard.shiftSquare(currentPosition, 2, 0));
-            }
-        }
-        return output;
-        */
-        return null;
-    }
-    
     /**
      * Copies from one LinkedList to another, without duplicates.
      * @param <V> the class of the objects contained in the LinkedLists
@@ -268,26 +130,9 @@ public class King extends AbstractPiece {
     public String getCharRepresentation() {
         return "K";
     }
-    
-    /**
-     * Notifies the King that it has moved
-     */
-    public void notifyOfMove() {
-        moved = true;
-    }
-    
-    /**
-     * Notifies the King that it is no longer in check
-     */
-    public void notifyNoCheck() {
-        inCheck = false;
-    }
 
-    /**
-     * Returns whether this King has moved
-     * @return whether this King has moved
-     */
-    public boolean isMoved() {
-        return moved;
+    @Override
+    public int getType() {
+        return MoveRecorder.KING;
     }
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package offlinechess;
+
+import java.util.LinkedList;
+
+/**
+ * Helper methods for moves packed into an int.<br>
+ * <br>
+ * bits 0 - 5: the index of the square moved from<br>
+ * bits 6 - 11: the index of the square moved to<br>
+ * bits 12 - 14: the piece promoted to (See: <code>MoveRecorder</code>)<br>
+ * bits 15 - 19: the flags<br>
+ * <br>
+ * Square indexes are the same as in Bitboard. 0 is never a real move.
+ * @author Jed Wang
+ */
+public final class Move {
+
+    /**
+     * Represents no move
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Flags a capture, including en passant
+     */
+    public static final int CAPTURE = 1 << 15;
+
+    /**
+     * Flags an en passant capture
+     */
+    public static final int EN_PASSANT = 1 << 16;
+
+    /**
+     * Flags castling; the move is the king's
+     */
+    public static final int CASTLING = 1 << 17;
+
+    /**
+     * Flags a pawn moving two squares
+     */
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    /**
+     * Flags a promotion
+     */
+    public static final int PROMOTION = 1 << 19;
+
+    /**
+     * The most moves a single piece can have
+     */
+    public static final int MAX_PIECE_MOVES = 32;
+
+    /**
+     * The most moves a side can have in any position
+     */
+    public static final int MAX_MOVES = 256;
+
+    /**
+     * No instantiation.
+     */
+    private Move() {}
+
+    /**
+     * Creates a move
+     * @param from the index of the square moved from
+     * @param to the index of the square moved to
+     * @param flags the flags of the move
+     * @return the move
+     */
+    public static int create(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    /**
+     * Creates a promotion
+     * @param from the index of the square moved from
+     * @param to the index of the square moved to
+     * @param flags the flags of the move, besides PROMOTION
+     * @param promotion the piece to promote to (See: <code>MoveRecorder</code>)
+     * @return the move
+     */
+    public static int create(int from, int to, int flags, int promotion) {
+        return from | (to << 6) | (promotion << 12) | flags | PROMOTION;
+    }
+
+    /**
+     * Determines where a move is from
+     * @param move the move
+     * @return the index of the square moved from
+     */
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * Determines where a move goes
+     * @param move the move
+     * @return the index of the square moved to
+     */
+    public static int getTo(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * Determines the piece a move promotes to
+     * @param move the move
+     * @return the piece promoted to, only meaningful for promotions
+     */
+    public static int getPromotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    /**
+     * Determines whether a move is a capture
+     * @param move the move
+     * @return whether the move is a capture
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Determines whether a move is an en passant capture
+     * @param move the move
+     * @return whether the move is an en passant capture
+     */
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * Determines whether a move is castling
+     * @param move the move
+     * @return whether the move is castling
+     */
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    /**
+     * Determines whether a move is a pawn moving two squares
+     * @param move the move
+     * @return whether the move is a double push
+     */
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Determines whether a move is a promotion
+     * @param move the move
+     * @return whether the move is a promotion
+     */
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    /**
+     * Lists the squares moved to, for the String based API.<br>
+     * Only the queen promotion is kept, so each square is listed once
+     * @param moves the moves
+     * @param from the index of the first move
+     * @param to the index after the last move
+     * @return the squares moved to
+     */
+    public static LinkedList<String> toSquares(int[] moves, int from, int to) {
+        LinkedList<String> output = new LinkedList<>();
+        for(int i = from; i < to; i++) {
+            if(isPromotion(moves[i]) && getPromotion(moves[i]) != MoveRecorder.QUEEN)
+                continue;
+            output.add(Bitboard.toSquare(getTo(moves[i])));
+        }
+        return output;
+    }
+
+    /**
+     * Creates a String that represents a move, such as e2e4 or e7e8q
+     * @param move the move
+     * @return a String that represents the move
+     */
+    public static String toString(int move) {
+        if(move == NONE) return "0000";
+        String output = Bitboard.toSquare(getFrom(move)) + Bitboard.toSquare(getTo(move));
+        if(isPromotion(move)) {
+            output += "pnbrqk".charAt(getPromotion(move));
+        }
+        return output;
+    }
+}
@@ -0,0 +1,326 @@
+package offlinechess;
+
+/**
+ * Generates strictly legal moves.<br>
+ * <br>
+ * The checking pieces, the pinned pieces and the squares the enemy attacks
+ * are worked out once per position. Each piece's moves are then masked by
+ * them, so no move has to be tried on the board to see if it leaves the
+ * king in check.
+ * @author Jed Wang
+ */
+public final class MoveGenerator {
+
+    /**
+     * No instantiation.
+     */
+    private MoveGenerator() {}
+
+    /**
+     * Writes every legal move of one side into a buffer
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side to generate for is white
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public static int legalMoves(Position cb, boolean isWhite, int[] moves, int count) {
+        return legalMoves(cb, isWhite, Bitboard.ALL, moves, count);
+    }
+
+    /**
+     * Writes the legal moves of some of one side's pieces into a buffer
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side to generate for is white
+     * @param fromMask the squares of the pieces to generate for
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public static int legalMoves(Position cb, boolean isWhite, long fromMask, int[] moves, int count) {
+        long us = cb.getOccupied(isWhite), occupied = cb.getOccupied();
+        int king = cb.getKingSquare(isWhite);
+        long checkers = attackers(cb, king, !isWhite, occupied);
+
+        if((fromMask & Bitboard.bit(king)) != 0) {
+            long danger = attackedSquares(cb, !isWhite, occupied & ~Bitboard.bit(king));
+            count = AbstractPiece.addMoves(cb, king, Attacks.kingAttacks(king) & ~us & ~danger, moves, count);
+            if(checkers == 0) count = castlingMoves(cb, isWhite, king, danger, moves, count);
+        }
+        // only the king can escape a double check
+        if(Bitboard.count(checkers) > 1) return count;
+
+        long checkMask = Bitboard.ALL;
+        if(checkers != 0) {
+            int checker = Bitboard.first(checkers);
+            checkMask = checkers | Attacks.between(king, checker);
+        }
+        long pinned = pinnedPieces(cb, isWhite, king);
+
+        long pieces = us & ~Bitboard.bit(king) & fromMask;
+        while(pieces != 0) {
+            int from = Bitboard.first(pieces);
+            pieces &= pieces - 1;
+            long allowed = checkMask;
+            if((pinned & Bitboard.bit(from)) != 0) allowed &= Attacks.line(king, from);
+
+            int start = count;
+            int end = cb.getPiece(from).allLegalMoves(cb, from, moves, count);
+            for(int i = start; i < end; i++) {
+                int move = moves[i];
+                if(Move.isEnPassant(move)) {
+                    if(!isLegalEnPassant(cb, isWhite, king, move, checkMask)) continue;
+                } else if((allowed & Bitboard.bit(Move.getTo(move))) == 0) {
+                    continue;
+                }
+                moves[count++] = move;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Determines whether one side has any legal move.<br>
+     * King moves are tried first, then each piece's captures, then each 
+     * piece's quiet moves, then en passant, straight from the attack masks, 
+     * and it stops at the first legal move it finds
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side is white
+     * @return whether the side has a legal move
+     */
+    public static boolean hasLegalMove(Position cb, boolean isWhite) {
+        long us = cb.getOccupied(isWhite), occupied = cb.getOccupied();
+        int king = cb.getKingSquare(isWhite);
+        long danger = attackedSquares(cb, !isWhite, occupied & ~Bitboard.bit(king));
+        // castling is never the only legal move, since the king could also step aside
+        if((Attacks.kingAttacks(king) & ~us & ~danger) != 0) return true;
+
+        long checkers = attackers(cb, king, !isWhite, occupied);
+        if(Bitboard.count(checkers) > 1) return false;
+        long checkMask = Bitboard.ALL;
+        if(checkers != 0) {
+            int checker = Bitboard.first(checkers);
+            checkMask = checkers | Attacks.between(king, checker);
+        }
+        long pinned = pinnedPieces(cb, isWhite, king);
+
+        // each piece is tested on its own, with its captures before any quiet move
+        for(int pass = 0; pass < 2; pass++) {
+            long pieces = us & ~Bitboard.bit(king);
+            while(pieces != 0) {
+                int from = Bitboard.first(pieces);
+                pieces &= pieces - 1;
+                long allowed = checkMask;
+                if((pinned & Bitboard.bit(from)) != 0) allowed &= Attacks.line(king, from);
+                if((targets(cb, from, isWhite, occupied, pass == 0) & allowed) != 0) return true;
+            }
+        }
+        // en passant is left for last, since it takes the most to check
+        int ep = cb.getEnPassantIndex();
+        if(ep == -1 || cb.getCurrentPlayer() != isWhite) return false;
+        long pawns = cb.getBitboard(MoveRecorder.PAWN, isWhite) & Attacks.pawnAttacks(ep, !isWhite);
+        while(pawns != 0) {
+            int from = Bitboard.first(pawns);
+            pawns &= pawns - 1;
+            int move = Move.create(from, ep, Move.CAPTURE | Move.EN_PASSANT);
+            if(isLegalEnPassant(cb, isWhite, king, move, checkMask)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the squares a piece other than the king could move to, 
+     * before pins and checks are taken into account.<br>
+     * En passant and castling are left out
+     * @param cb the current state of the chess game
+     * @param from the square of the piece
+     * @param isWhite whether the piece is white
+     * @param occupied the squares with a piece on them
+     * @param captures whether to find the captures, or the quiet moves
+     * @return the squares the piece could capture on, or move quietly to
+     */
+    private static long targets(Position cb, int from, boolean isWhite, long occupied, boolean captures) {
+        long attacks;
+        switch(cb.getPiece(from).getType()) {
+            case MoveRecorder.PAWN:
+                if(captures) return Attacks.pawnAttacks(from, isWhite) & cb.getOccupied(!isWhite);
+                int step = (isWhite)?-8:8;
+                long push = Bitboard.bit(from + step) & ~occupied;
+                if(push != 0 && Bitboard.getRow(from) == ((isWhite)?6:1)) 
+                    push |= Bitboard.bit(from + 2 * step) & ~occupied;
+                return push;
+            case MoveRecorder.KNIGHT:
+                attacks = Attacks.knightAttacks(from);
+                break;
+            case MoveRecorder.BISHOP:
+                attacks = Attacks.bishopAttacks(from, occupied);
+                break;
+            case MoveRecorder.ROOK:
+                attacks = Attacks.rookAttacks(from, occupied);
+                break;
+            default:
+                attacks = Attacks.queenAttacks(from, occupied);
+                break;
+        }
+        return attacks & ((captures)?cb.getOccupied(!isWhite):~occupied);
+    }
+
+    /**
+     * Determines which pieces attack a square
+     * @param cb the current state of the chess game
+     * @param square the index of the square
+     * @param byWhite whether the attacking side is white
+     * @param occupied the squares that block sliding pieces
+     * @return the squares of the attacking pieces
+     */
+    public static long attackers(Position cb, int square, boolean byWhite, long occupied) {
+        long queens = cb.getBitboard(MoveRecorder.QUEEN, byWhite);
+        return (Attacks.knightAttacks(square) & cb.getBitboard(MoveRecorder.KNIGHT, byWhite))
+                | (Attacks.kingAttacks(square) & cb.getBitboard(MoveRecorder.KING, byWhite))
+                | (Attacks.pawnAttacks(square, !byWhite) & cb.getBitboard(MoveRecorder.PAWN, byWhite))
+                | (Attacks.rookAttacks(square, occupied)
+                    & (cb.getBitboard(MoveRecorder.ROOK, byWhite) | queens))
+                | (Attacks.bishopAttacks(square, occupied)
+                    & (cb.getBitboard(MoveRecorder.BISHOP, byWhite) | queens));
+    }
+
+    /**
+     * Determines every square one side attacks
+     * @param cb the current state of the chess game
+     * @param byWhite whether the attacking side is white
+     * @param occupied the squares that block sliding pieces
+     * @return the attacked squares
+     */
+    public static long attackedSquares(Position cb, boolean byWhite, long occupied) {
+        long output = 0L;
+        long pieces = cb.getOccupied(byWhite);
+        while(pieces != 0) {
+            int from = Bitboard.first(pieces);
+            pieces &= pieces - 1;
+            switch(cb.getPiece(from).getType()) {
+                case MoveRecorder.PAWN:
+                    output |= Attacks.pawnAttacks(from, byWhite);
+                    break;
+                case MoveRecorder.KNIGHT:
+                    output |= Attacks.knightAttacks(from);
+                    break;
+                case MoveRecorder.BISHOP:
+                    output |= Attacks.bishopAttacks(from, occupied);
+                    break;
+                case MoveRecorder.ROOK:
+                    output |= Attacks.rookAttacks(from, occupied);
+                    break;
+                case MoveRecorder.QUEEN:
+                    output |= Attacks.queenAttacks(from, occupied);
+                    break;
+                case MoveRecorder.KING:
+                    output |= Attacks.kingAttacks(from);
+                    break;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Determines which of one side's pieces are pinned to their king
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side is white
+     * @param king the index of that side's king
+     * @return the squares of the pinned pieces
+     */
+    private static long pinnedPieces(Position cb, boolean isWhite, int king) {
+        long them = cb.getOccupied(!isWhite), occupied = cb.getOccupied();
+        long queens = cb.getBitboard(MoveRecorder.QUEEN, !isWhite);
+        long snipers = (Attacks.rookAttacks(king, them)
+                    & (cb.getBitboard(MoveRecorder.ROOK, !isWhite) | queens))
+                | (Attacks.bishopAttacks(king, them)
+                    & (cb.getBitboard(MoveRecorder.BISHOP, !isWhite) | queens));
+        long pinned = 0L;
+        while(snipers != 0) {
+            int sniper = Bitboard.first(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if(Bitboard.count(blockers) == 1) pinned |= blockers & cb.getOccupied(isWhite);
+        }
+        return pinned;
+    }
+
+    /**
+     * Determines whether an en passant capture is legal.<br>
+     * It removes two pieces from a rank at once, so it is checked
+     * against the sliders on the board it leaves behind
+     * @param cb the current state of the chess game
+     * @param isWhite whether the capturing side is white
+     * @param king the index of the capturing side's king
+     * @param move the en passant capture
+     * @param checkMask the squares that block or capture a checking piece
+     * @return whether the capture is legal
+     */
+    private static boolean isLegalEnPassant(Position cb, boolean isWhite, int king, int move, long checkMask) {
+        int from = Move.getFrom(move), to = Move.getTo(move);
+        int captured = to + ((isWhite)?8:-8);
+        if((checkMask & (Bitboard.bit(to) | Bitboard.bit(captured))) == 0) return false;
+        long occupied = (cb.getOccupied() ^ Bitboard.bit(from) ^ Bitboard.bit(captured))
+                | Bitboard.bit(to);
+        long queens = cb.getBitboard(MoveRecorder.QUEEN, !isWhite);
+        return (Attacks.rookAttacks(king, occupied)
+                    & (cb.getBitboard(MoveRecorder.ROOK, !isWhite) | queens)) == 0
+                && (Attacks.bishopAttacks(king, occupied)
+                    & (cb.getBitboard(MoveRecorder.BISHOP, !isWhite) | queens)) == 0;
+    }
+
+    /**
+     * Writes the legal castling moves into a buffer.<br>
+     * Only the squares the king stands on and passes over are looked up, 
+     * and nothing is looked up without the castling rights
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side is white
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    public static int castlingMoves(Position cb, boolean isWhite, int[] moves, int count) {
+        boolean kingSide = cb.canCastle(isWhite, true), queenSide = cb.canCastle(isWhite, false);
+        if(!kingSide && !queenSide) return count;
+        long occupied = cb.getOccupied();
+        int king = cb.getKingSquare(isWhite);
+        if(kingSide && (occupied & (Bitboard.bit(king + 1) | Bitboard.bit(king + 2))) != 0) 
+            kingSide = false;
+        if(queenSide && (occupied & (Bitboard.bit(king - 1) | Bitboard.bit(king - 2) 
+                | Bitboard.bit(king - 3))) != 0) queenSide = false;
+        if((!kingSide && !queenSide) || cb.isSquareAttacked(king, !isWhite)) return count;
+        if(kingSide && !cb.isSquareAttacked(king + 1, !isWhite) 
+                && !cb.isSquareAttacked(king + 2, !isWhite))
+            moves[count++] = Move.create(king, king + 2, Move.CASTLING);
+        if(queenSide && !cb.isSquareAttacked(king - 1, !isWhite) 
+                && !cb.isSquareAttacked(king - 2, !isWhite))
+            moves[count++] = Move.create(king, king - 2, Move.CASTLING);
+        return count;
+    }
+
+    /**
+     * Writes the legal castling moves into a buffer, 
+     * with the enemy's attacks already worked out
+     * @param cb the current state of the chess game
+     * @param isWhite whether the side is white
+     * @param king the index of the king, which must not be in check
+     * @param danger the squares the enemy attacks
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    private static int castlingMoves(Position cb, boolean isWhite, int king, long danger, int[] moves, int count) {
+        long occupied = cb.getOccupied();
+        if(cb.canCastle(isWhite, true)) {
+            long path = Bitboard.bit(king + 1) | Bitboard.bit(king + 2);
+            if((occupied & path) == 0 && (danger & path) == 0)
+                moves[count++] = Move.create(king, king + 2, Move.CASTLING);
+        }
+        if(cb.canCastle(isWhite, false)) {
+            long path = Bitboard.bit(king - 1) | Bitboard.bit(king - 2);
+            if((occupied & (path | Bitboard.bit(king - 3))) == 0 && (danger & path) == 0)
+                moves[count++] = Move.create(king, king - 2, Move.CASTLING);
+        }
+        return count;
+    }
+}
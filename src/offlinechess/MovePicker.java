@@ -0,0 +1,319 @@
+package offlinechess;
+
+/**
+ * Hands out the moves of a position in the order the search should try
+ * them, a stage at a time.<br>
+ * <br>
+ * The hash move comes first, and is checked on its own, so when it cuts
+ * off no other moves are generated. Then come the captures and queen
+ * promotions, most valuable victim first and least valuable attacker
+ * first among those (MVV-LVA); then the two killer moves, quiet moves that
+ * cut off at the same depth elsewhere; then the rest of the quiet moves,
+ * by how often they have cut off before (the history heuristic). Each move
+ * is picked out of the rest when it is needed, so moves after a cutoff are
+ * never sorted. Everything is kept in primitive arrays that are reused
+ * from position to position.
+ * @author Jed Wang
+ */
+public class MovePicker {
+
+    /**
+     * How many entries a history table has: one for each side,
+     * square moved from and square moved to
+     */
+    public static final int HISTORY_SIZE = 2 * 64 * 64;
+
+    /**
+     * The stages, in the order they come
+     */
+    private static final int HASH = 0, GENERATE = 1, CAPTURES = 2, KILLER_1 = 3, KILLER_2 = 4,
+            SCORE_QUIETS = 5, QUIETS = 6, UNORDERED = 7, DONE = 8;
+
+    /**
+     * The moves of the position, captures first
+     */
+    private final int[] moves = new int[Move.MAX_MOVES];
+
+    /**
+     * The ordering score of each move
+     */
+    private final int[] scores = new int[Move.MAX_MOVES];
+
+    /**
+     * A buffer for checking that the hash move is legal
+     */
+    private final int[] pieceMoves = new int[Move.MAX_PIECE_MOVES];
+
+    /**
+     * How often each quiet move has cut off, by <code>historyIndex</code>
+     */
+    private final int[] history;
+
+    /**
+     * Whether to order the moves, or hand them out as they were generated
+     */
+    private boolean ordered = true;
+
+    /**
+     * The position the moves are for
+     */
+    private Position cb;
+
+    /**
+     * Whether the side to move is white
+     */
+    private boolean isWhite;
+
+    /**
+     * Whether to hand out quiet moves, or only captures and queen promotions
+     */
+    private boolean quiets;
+
+    /**
+     * The moves to try first
+     */
+    private int hashMove, killer1, killer2;
+
+    /**
+     * The current stage
+     */
+    private int stage;
+
+    /**
+     * The next move to hand out in the current stage
+     */
+    private int index;
+
+    /**
+     * Where the captures end and the quiet moves start
+     */
+    private int captureEnd;
+
+    /**
+     * How many moves are handed out in all
+     */
+    private int count;
+
+    /**
+     * How many moves are legal, counting the ones not handed out
+     */
+    private int legalCount;
+
+    /**
+     * Creates a new MovePicker
+     * @param history the history table to order quiet moves by,
+     * which the search keeps up to date
+     */
+    public MovePicker(int[] history) {
+        if(history.length != HISTORY_SIZE) throw new IllegalArgumentException("Invalid history size: " + history.length);
+        this.history = history;
+    }
+
+    /**
+     * Sets whether to order the moves.<br>
+     * If not, the hash move still comes first,
+     * and the rest come in the order they were generated
+     * @param ordered whether to order the moves
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Starts handing out the moves of a position
+     * @param cb the current state of the chess game
+     * @param hashMove the move to try first, or <code>Move.NONE</code>;
+     * it is left out if it is not legal
+     * @param killers the killer moves of this ply,
+     * or <code>Move.NONE</code> for none
+     * @param quiets whether to hand out quiet moves,
+     * or only captures and queen promotions
+     */
+    public void start(Position cb, int hashMove, int[] killers, boolean quiets) {
+        this.cb = cb;
+        this.isWhite = cb.getCurrentPlayer();
+        this.hashMove = hashMove;
+        this.killer1 = killers[0];
+        this.killer2 = killers[1];
+        this.quiets = quiets;
+        stage = (hashMove == Move.NONE)?GENERATE:HASH;
+        legalCount = -1;
+    }
+
+    /**
+     * Hands out the next move
+     * @return the next move (See: <code>Move</code>),
+     * or <code>Move.NONE</code> if there are no more
+     */
+    public int next() {
+        while(true) {
+            switch(stage) {
+                case HASH:
+                    stage = GENERATE;
+                    if((quiets || isTactical(hashMove)) && isLegal(hashMove)) return hashMove;
+                    hashMove = Move.NONE;
+                    break;
+                case GENERATE:
+                    generate();
+                    index = 0;
+                    stage = (ordered)?CAPTURES:UNORDERED;
+                    break;
+                case CAPTURES:
+                    while(index < captureEnd) {
+                        int move = pick(index++, captureEnd);
+                        if(move != hashMove) return move;
+                    }
+                    stage = (quiets)?KILLER_1:DONE;
+                    break;
+                case KILLER_1:
+                    stage = KILLER_2;
+                    if(killer1 != hashMove && isQuiet(killer1)) return killer1;
+                    break;
+                case KILLER_2:
+                    stage = SCORE_QUIETS;
+                    if(killer2 != hashMove && isQuiet(killer2)) return killer2;
+                    break;
+                case SCORE_QUIETS:
+                    for(int i = captureEnd; i < count; i++) {
+                        scores[i] = history[historyIndex(isWhite, moves[i])];
+                    }
+                    index = captureEnd;
+                    stage = QUIETS;
+                    break;
+                case QUIETS:
+                    while(index < count) {
+                        int move = pick(index++, count);
+                        if(move != hashMove && move != killer1 && move != killer2) return move;
+                    }
+                    stage = DONE;
+                    break;
+                case UNORDERED:
+                    while(index < count) {
+                        int move = moves[index++];
+                        if(move != hashMove) return move;
+                    }
+                    stage = DONE;
+                    break;
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    /**
+     * Returns how many legal moves the position has,
+     * counting the quiet moves even if they are not handed out
+     * @return how many legal moves there are,
+     * or -1 if they have not been generated yet
+     */
+    public int getLegalCount() {
+        return legalCount;
+    }
+
+    /**
+     * Generates the legal moves, with the captures first
+     * and scored if the moves are ordered
+     */
+    private void generate() {
+        count = legalCount = MoveGenerator.legalMoves(cb, isWhite, moves, 0);
+        int end = 0;
+        if(ordered) {
+            for(int i = 0; i < count; i++) {
+                if(!isTactical(moves[i])) continue;
+                int move = moves[i];
+                moves[i] = moves[end];
+                moves[end++] = move;
+            }
+            for(int i = 0; i < end; i++) {
+                scores[i] = mvvLva(moves[i]);
+            }
+        } else if(!quiets) {
+            // keep the captures in the order they were generated
+            for(int i = 0; i < count; i++) {
+                if(isTactical(moves[i])) moves[end++] = moves[i];
+            }
+        }
+        captureEnd = end;
+        if(!quiets) count = end;
+    }
+
+    /**
+     * Moves the best scored of some moves to the front of them
+     * @param from the index of the first of the moves
+     * @param to the index after the last of the moves
+     * @return the best scored move
+     */
+    private int pick(int from, int to) {
+        int best = from;
+        for(int i = from + 1; i < to; i++) {
+            if(scores[i] > scores[best]) best = i;
+        }
+        int move = moves[best], score = scores[best];
+        moves[best] = moves[from];
+        scores[best] = scores[from];
+        moves[from] = move;
+        scores[from] = score;
+        return move;
+    }
+
+    /**
+     * Scores a capture or promotion by the piece taken,
+     * and then by the piece taking it
+     * @param move the move
+     * @return the higher the better
+     */
+    private int mvvLva(int move) {
+        int attacker = cb.getPiece(Move.getFrom(move)).getType();
+        int victim = -1;
+        if(Move.isEnPassant(move)) victim = MoveRecorder.PAWN;
+        else if(Move.isCapture(move)) victim = cb.getPiece(Move.getTo(move)).getType();
+        if(Move.isPromotion(move) && Move.getPromotion(move) == MoveRecorder.QUEEN) victim += MoveRecorder.QUEEN;
+        return (victim + 1) * 8 - attacker;
+    }
+
+    /**
+     * Determines whether a move is a capture or a queen promotion
+     * @param move the move
+     * @return whether the move is a capture or a queen promotion
+     */
+    private static boolean isTactical(int move) {
+        return Move.isCapture(move) || (Move.isPromotion(move) && Move.getPromotion(move) == MoveRecorder.QUEEN);
+    }
+
+    /**
+     * Determines whether a move is one of the quiet moves generated
+     * @param move the move
+     * @return whether the move is a legal quiet move in the position
+     */
+    private boolean isQuiet(int move) {
+        if(move == Move.NONE) return false;
+        for(int i = captureEnd; i < count; i++) {
+            if(moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether a move is legal,
+     * generating only the moves of the piece that makes it
+     * @param move the move
+     * @return whether the move is legal in the position
+     */
+    private boolean isLegal(int move) {
+        int n = MoveGenerator.legalMoves(cb, isWhite, Bitboard.bit(Move.getFrom(move)), pieceMoves, 0);
+        for(int i = 0; i < n; i++) {
+            if(pieceMoves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds a quiet move's entry in a history table
+     * @param isWhite whether the side making the move is white
+     * @param move the move
+     * @return the index of the move's entry
+     */
+    public static int historyIndex(boolean isWhite, int move) {
+        return ((isWhite)?0:1 << 12) | (move & 0xFFF);
+    }
+}
@@ -48,11 +48,25 @@ public class MoveRecorder {
      */
     private String outcome = "";
     
+    /**
+     * The position the game started from, in Forsyth-Edwards Notation
+     */
+    private final String startFEN;
+    
     /**
      * Default constructor
      */
     public MoveRecorder() {
+        this(Position.START_FEN);
+    }
+    
+    /**
+     * Creates a MoveRecorder for a game that started from a given position
+     * @param startFEN the starting position in Forsyth-Edwards Notation
+     */
+    public MoveRecorder(String startFEN) {
         moves = new ArrayList<>();
+        this.startFEN = startFEN;
     }
     
     /**
@@ -61,6 +75,23 @@ public class MoveRecorder {
      */
     public MoveRecorder(MoveRecorder mr) {
         moves = new ArrayList<>(mr.moves);
+        startFEN = mr.startFEN;
+    }
+    
+    /**
+     * Returns the position the game started from
+     * @return the starting position in Forsyth-Edwards Notation
+     */
+    public String getStartFEN() {
+        return startFEN;
+    }
+    
+    /**
+     * Determines whether the game started from the standard starting position
+     * @return whether the game started from the standard starting position
+     */
+    public boolean isStandardStart() {
+        return startFEN.equals(Position.START_FEN);
     }
 
     /**
@@ -215,14 +246,157 @@ public class MoveRecorder {
         }
     }
     
+    /**
+     * Determines the Standard Algebraic Notation of a move, without the check marks.<br>
+     * Whether the file or rank of the moved piece is needed is read off 
+     * the legal moves, so no move has to be tried
+     * @param before the state of the game before the move
+     * @param move the move (See: <code>Move</code>)
+     * @param legalMoves the legal moves in the position, 
+     * or at least those of the pieces of the moved piece's type
+     * @param count how many moves are in legalMoves
+     * @return the String that denotes the move
+     */
+    public static String toSAN(Position before, int move, int[] legalMoves, int count) {
+        int from = Move.getFrom(move), to = Move.getTo(move);
+        if(Move.isCastling(move)) return (to > from)?"O-O":"O-O-O";
+        AbstractPiece piece = before.getPiece(from);
+        if(piece == null) throw new IllegalArgumentException("Null piece");
+        int whichPiece = piece.getType();
+        StringBuilder output = new StringBuilder(8);
+        if(whichPiece == PAWN) {
+            if(Move.isCapture(move)) output.append((char) ('a' + Bitboard.getColumn(from))).append('x');
+            output.append(Bitboard.toSquare(to));
+            if(Move.isPromotion(move)) 
+                output.append('=').append(AbstractPiece.of(Move.getPromotion(move), true).getCharRepresentation());
+            return output.toString();
+        }
+        output.append(piece.getCharRepresentation());
+        // the file if it tells the pieces apart, else the rank if it does, else both
+        boolean ambiguous = false, sameFile = false, sameRank = false;
+        for(int i = 0; i < count; i++) {
+            int otherFrom = Move.getFrom(legalMoves[i]);
+            if(Move.getTo(legalMoves[i]) != to || otherFrom == from 
+                    || before.getPiece(otherFrom).getType() != whichPiece) continue;
+            ambiguous = true;
+            if(Bitboard.getColumn(otherFrom) == Bitboard.getColumn(from)) sameFile = true;
+            if(Bitboard.getRow(otherFrom) == Bitboard.getRow(from)) sameRank = true;
+        }
+        if(ambiguous && (!sameFile || sameRank)) output.append((char) ('a' + Bitboard.getColumn(from)));
+        if(sameFile) output.append(8 - Bitboard.getRow(from));
+        if(Move.isCapture(move)) output.append('x');
+        return output.append(Bitboard.toSquare(to)).toString();
+    }
+    
+    /**
+     * Finds the move a String in Standard Algebraic Notation denotes, 
+     * generating the legal moves of only the kind of piece it names
+     * @param before the state of the game before the move
+     * @param san the move in Standard Algebraic Notation
+     * @param buffer a buffer to generate the moves into
+     * @return the move (See: <code>Move</code>)
+     */
+    public static int fromSAN(Position before, String san, int[] buffer) {
+        if(san.isEmpty()) throw new IllegalArgumentException("Invalid move " + san);
+        char first = san.charAt(0);
+        int whichPiece = (first == 'O' || first == '0')?KING:Math.max(PAWN, "PNBRQK".indexOf(first));
+        boolean isWhite = before.getCurrentPlayer();
+        int count = MoveGenerator.legalMoves(before, isWhite, 
+                before.getBitboard(whichPiece, isWhite), buffer, 0);
+        return fromSAN(before, san, buffer, count);
+    }
+    
+    /**
+     * Finds the move a String in Standard Algebraic Notation denotes.<br>
+     * Check marks and annotations such as "+", "#" and "!?" are ignored, 
+     * and castling may be written with zeros
+     * @param before the state of the game before the move
+     * @param san the move in Standard Algebraic Notation
+     * @param legalMoves the legal moves in the position
+     * @param count how many moves are in legalMoves
+     * @return the move (See: <code>Move</code>)
+     */
+    public static int fromSAN(Position before, String san, int[] legalMoves, int count) {
+        int end = san.length();
+        while(end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        if(end < 2) throw new IllegalArgumentException("Invalid move " + san);
+        
+        if(san.charAt(0) == 'O' || san.charAt(0) == '0') {
+            boolean kingSide;
+            if(end == 3 && (san.startsWith("O-O") || san.startsWith("0-0"))) kingSide = true;
+            else if(end == 5 && (san.startsWith("O-O-O") || san.startsWith("0-0-0"))) kingSide = false;
+            else throw new IllegalArgumentException("Invalid move " + san);
+            for(int i = 0; i < count; i++) {
+                if(Move.isCastling(legalMoves[i]) 
+                        && (Move.getTo(legalMoves[i]) > Move.getFrom(legalMoves[i])) == kingSide) 
+                    return legalMoves[i];
+            }
+            throw new IllegalArgumentException("Illegal move " + san);
+        }
+        
+        int start = 0, whichPiece = PAWN, promotion = -1;
+        int piece = "PNBRQK".indexOf(san.charAt(0));
+        if(piece >= 0) {
+            whichPiece = piece;
+            start = 1;
+        }
+        if(whichPiece == PAWN) {
+            // e8=Q, or e8Q
+            int promoted = "PNBRQ".indexOf(san.charAt(end - 1));
+            if(promoted > 0) {
+                promotion = promoted;
+                end -= (san.charAt(end - 2) == '=')?2:1;
+            }
+        }
+        if(end - start < 2) throw new IllegalArgumentException("Invalid move " + san);
+        int toCol = san.charAt(end - 2) - 'a', toRow = '8' - san.charAt(end - 1);
+        if(!Position.isValidSquare(toCol, toRow)) throw new IllegalArgumentException("Invalid move " + san);
+        int to = Bitboard.toIndex(toCol, toRow);
+        int fromCol = -1, fromRow = -1;
+        for(int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if(c >= 'a' && c <= 'h') fromCol = c - 'a';
+            else if(c >= '1' && c <= '8') fromRow = '8' - c;
+            else if(c != 'x' && c != '-') throw new IllegalArgumentException("Invalid move " + san);
+        }
+        
+        int output = Move.NONE;
+        for(int i = 0; i < count; i++) {
+            int move = legalMoves[i], from = Move.getFrom(move);
+            if(Move.getTo(move) != to || Move.isCastling(move)) continue;
+            if(fromCol != -1 && Bitboard.getColumn(from) != fromCol) continue;
+            if(fromRow != -1 && Bitboard.getRow(from) != fromRow) continue;
+            if(before.getPiece(from).getType() != whichPiece) continue;
+            if(Move.isPromotion(move) != (promotion != -1)) continue;
+            if(promotion != -1 && Move.getPromotion(move) != promotion) continue;
+            if(output != Move.NONE) throw new IllegalArgumentException("Ambiguous move " + san);
+            output = move;
+        }
+        if(output == Move.NONE) throw new IllegalArgumentException("Illegal move " + san);
+        return output;
+    }
+    
+    /**
+     * Notes a move that has been made
+     * @param after the state of the game after the move
+     * @param san the move without the check marks (See: <code>toSAN</code>)
+     */
+    public void moved(Position after, String san) {
+        boolean isWhite = !after.getCurrentPlayer();
+        moves.add(addChecks(san, after, isWhite));
+        if(after.checkMated(!isWhite)) addOutcome((isWhite)?1:-1);
+    }
+    
     /**
      * Notifies this object of a move and notes it
      * @param before the state of the game before the move
      * @param after the state of the game after the move
      * @param fromWhere from where the piece was moved
      * @param toWhere to where the piece was moved
+     * @deprecated tries each same-type piece's moves; use toSAN and moved(Position, String)
      */
-    public void moved(ChessBoard before, ChessBoard after, String fromWhere, String toWhere) {
+    @Deprecated
+    public void moved(Position before, Position after, String fromWhere, String toWhere) {
         /*moved(before, 
                 ChessBoard.getColumn(fromWhere), ChessBoard.getRow(fromWhere), 
                 ChessBoard.getColumn(toWhere), ChessBoard.getRow(toWhere));*/
@@ -288,8 +462,10 @@ public class MoveRecorder {
      * @param fromWhereY from which Y position the piece was moved
      * @param toWhereX to which X position the piece was moved
      * @param toWhereY to which Y position the piece was moved
+     * @deprecated tries each same-type piece's moves; use toSAN and moved(Position, String)
      */
-    public void moved(ChessBoard before, ChessBoard after, int fromWhereX, int fromWhereY, int toWhereX, int toWhereY) {
+    @Deprecated
+    public void moved(Position before, Position after, int fromWhereX, int fromWhereY, int toWhereX, int toWhereY) {
         moved(before, after,  
                 ChessBoard.toSquare(fromWhereX, fromWhereY), 
                 ChessBoard.toSquare(toWhereX, toWhereY));
@@ -301,7 +477,7 @@ public class MoveRecorder {
      * @param toWhere to where the piece was moved
      * @return whether a move is a capture
      */
-    private boolean isCapture(ChessBoard before, String toWhere) {
+    private boolean isCapture(Position before, String toWhere) {
         if(before.getEnPassant() == null) {
             return !before.isEmptySquare(toWhere);
         } else {
@@ -317,7 +493,7 @@ public class MoveRecorder {
      * @param piece which piece is to be moved
      * @return A String that represents the move
      */
-    private String moveString(ChessBoard before, String fromWhere, String toWhere, AbstractPiece piece, int whichPiece, boolean capture) {
+    private String moveString(Position before, String fromWhere, String toWhere, AbstractPiece piece, int whichPiece, boolean capture) {
         if(!piece.isAllLegalMove(before, fromWhere, toWhere)) 
             throw new IllegalArgumentException("This isn\'t a legal move");
         ArrayList<String> allPiece = before.findAll(whichPiece, piece.isWhite);
@@ -353,12 +529,9 @@ public class MoveRecorder {
      * @param isWhite whether the moved piece is white
      * @return the finished move notation
      */
-    public String addChecks(String move, ChessBoard after, boolean isWhite) {
-        if(after.checkMated(!isWhite)) {
-            return move + "#";
-        } else if(after.inCheck(!isWhite)) {
-            return move + "+";
-        } else return move;
+    public String addChecks(String move, Position after, boolean isWhite) {
+        if(!after.inCheck(!isWhite)) return move;
+        return move + ((after.checkMated(!isWhite))?"#":"+");
     }
     
     /**
@@ -382,13 +555,24 @@ public class MoveRecorder {
     }
     
     /**
-     * Determines whether 50 moves have been made without a pawn moving.
+     * Returns the outcome of the game, as it is written in PGN
+     * @return "1-0", "0-1", "1/2-1/2", or "*" if the game is not over
+     */
+    public String getOutcome() {
+        return (outcome.isEmpty())?PgnWriter.UNFINISHED:outcome;
+    }
+    
+    /**
+     * Determines whether 50 moves have been made without a capture or a pawn moving.
      * @return whether it is a draw according to this rule.
+     * @deprecated use Position.is50MoveDraw, which keeps a halfmove clock
      */
+    @Deprecated
     public boolean is50MoveDraw() {
         if(moves.size() < 100) return false;
-        for(int i = moves.size()-1; i <= moves.size()-100; i--) {
-            if(Character.isLowerCase(moves.get(i).charAt(0))) return false;
+        for(int i = moves.size()-1; i >= moves.size()-100; i--) {
+            String move = moves.get(i);
+            if(Character.isLowerCase(move.charAt(0)) || move.contains("x")) return false;
         }
         return true;
     }
@@ -408,14 +592,18 @@ public class MoveRecorder {
      */
     @Override
     public String toString() {
-        String output = "";
+        StringBuilder output = new StringBuilder(moves.size() * 7 + 8);
+        Position start = Position.fromFEN(startFEN);
+        // the moves are numbered on from the starting position
+        int first = (start.getFullmoveNumber() - 1) * 2 + ((start.getCurrentPlayer())?0:1);
         for(int i = 0; i < moves.size(); i++) {
-            if(i%2 == 0) {
-                output += ((i/2) + 1) + ". ";
+            if((first + i)%2 == 0) {
+                output.append((first + i)/2 + 1).append(". ");
+            } else if(i == 0) {
+                output.append(first/2 + 1).append("... ");
             }
-            output += moves.get(i) + " ";
+            output.append(moves.get(i)).append(' ');
         }
-        output += outcome;
-        return output;
+        return output.append(outcome).toString();
     }
 }
\ No newline at end of file
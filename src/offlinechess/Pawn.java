@@ -4,7 +4,6 @@ import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
-import java.util.LinkedList;
 import javax.imageio.ImageIO;
 
 /**
@@ -13,108 +12,83 @@ import javax.imageio.ImageIO;
  */
 public class Pawn extends AbstractPiece {
     
-    public Pawn(boolean isWhite) {
+    Pawn(boolean isWhite) {
         super(isWhite);
     }
 
     @Override
-    public LinkedList<String> allLegalMoves(ChessBoard cb, String currentPosition) {
-        if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
-        if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("P"))) throw new IllegalArgumentException("This isn\'t a pawn!");
-        LinkedList<String> output = new LinkedList<>();
-        int row = ChessBoard.getRow(currentPosition), column = ChessBoard.getColumn(currentPosition);
+    public int allLegalMoves(Position cb, int from, int[] moves, int count) {
+        int row = Bitboard.getRow(from);
         if(isWhite) {
             if(row == 0) assert false : "Pawns should have promoted already!";
             if(row == 7) assert false : "Dafuq white pawns shouldn\'t be on the first rank";
-            if(ChessBoard.isValidSquare(column, row-1)) {
-                if(cb.isEmptySquare(column, row - 1)) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 0, -1));
-                }
-            }
-            if(ChessBoard.isValidSquare(column, row - 1) && ChessBoard.isValidSquare(column, row - 2)) {
-                if(row == 6 && cb.isEmptySquare(column, row - 1) && cb.isEmptySquare(column, row - 2)) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 0, -2));
-                }
-            }
-            if(ChessBoard.isValidSquare(column - 1, row - 1)) {
-                if((!cb.isEmptySquare(column - 1, row - 1) && !cb.getPiece(column - 1, row - 1).isWhite) || 
-                        (cb.getEnPassant() == null?ChessBoard.shiftSquare(currentPosition, -1, -1) == null
-                        :cb.getEnPassant().equals(ChessBoard.shiftSquare(currentPosition, -1, -1)))) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, -1, -1));
-                }
-            }
-            if (ChessBoard.isValidSquare(column + 1, row - 1)) {
-                if(!cb.isEmptySquare(column + 1, row - 1) && !cb.getPiece(column + 1, row - 1).isWhite || 
-                        (cb.getEnPassant() == null?ChessBoard.shiftSquare(currentPosition, 1, -1) == null
-                        :cb.getEnPassant().equals(ChessBoard.shiftSquare(currentPosition, 1, -1)))) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 1, -1));
-                }
-            }
         } else {
             if(row == 7) assert false : "Pawns should have promoted already!";
             if(row == 0) assert false : "Dafuq black pawns shouldn\'t be on the eighth rank";
-            if(ChessBoard.isValidSquare(column, row+1)) {
-                if(cb.isEmptySquare(column, row + 1)) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 0, 1));
-                }
-            }
-            if(ChessBoard.isValidSquare(column, row + 1) && ChessBoard.isValidSquare(column, row + 2)) {
-                if(row == 1 && cb.isEmptySquare(column, row + 1) && cb.isEmptySquare(column, row + 2)) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 0, 2));
-                }
-            }
-            if(ChessBoard.isValidSquare(column - 1, row + 1)) {
-                if(!cb.isEmptySquare(column - 1, row + 1) && cb.getPiece(column - 1, row + 1).isWhite 
-                        || (cb.getEnPassant() == null?ChessBoard.shiftSquare(currentPosition, -1, 1) == null
-                        :cb.getEnPassant().equals(ChessBoard.shiftSquare(currentPosition, -1, 1)))) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, -1, 1));
-                }
-            }
-            if(ChessBoard.isValidSquare(column + 1, row + 1)) {
-                if(!cb.isEmptySquare(column + 1, row + 1) && cb.getPiece(column + 1, row + 1).isWhite 
-                        || (cb.getEnPassant() == null?ChessBoard.shiftSquare(currentPosition, 1, 1) == null
-                        :cb.getEnPassant().equals(ChessBoard.shiftSquare(currentPosition, 1, 1)))) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 1, 1));
-                }
+        }
+        long empty = ~cb.getOccupied();
+        long pawn = Bitboard.bit(from);
+        long single = ((isWhite)?pawn >>> 8:pawn << 8) & empty;
+        if(single != 0) {
+            count = addPawnMove(from, Bitboard.first(single), 0, moves, count);
+            if(row == ((isWhite)?6:1)) {
+                long two = ((isWhite)?single >>> 8:single << 8) & empty;
+                if(two != 0) 
+                    moves[count++] = Move.create(from, Bitboard.first(two), Move.DOUBLE_PUSH);
             }
         }
-        return output;
+        long attacks = Attacks.pawnAttacks(from, isWhite);
+        long captures = attacks & cb.getOccupied(!isWhite);
+        while(captures != 0) {
+            count = addPawnMove(from, Bitboard.first(captures), Move.CAPTURE, moves, count);
+            captures &= captures - 1;
+        }
+        long enPassant = attacks & enPassantSquare(cb);
+        if(enPassant != 0) {
+            moves[count++] = Move.create(from, Bitboard.first(enPassant), 
+                    Move.CAPTURE | Move.EN_PASSANT);
+        }
+        return count;
     }
-
-    @Override
-    public LinkedList<String> legalCaptures(ChessBoard cb, String currentPosition) {
-        if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
-        if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("P"))) throw new IllegalArgumentException("This isn\'t a pawn!");
-        LinkedList<String> output = new LinkedList<>();
-        int row = ChessBoard.getRow(currentPosition), column = ChessBoard.getColumn(currentPosition);
-        if(isWhite) {
-            if(row == 0) assert false : "Pawns should have promoted already!";
-            if(row == 7) assert false : "Dafuq white pawns shouldn\'t be on the first rank";
-            if(ChessBoard.isValidSquare(column - 1, row - 1)) {
-                if(cb.isEmptySquare(column - 1, row - 1) || !cb.getPiece(column - 1, row - 1).isWhite) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, -1, -1));
-                }
-            }
-            if (ChessBoard.isValidSquare(column + 1, row - 1)) {
-                if(cb.isEmptySquare(column + 1, row - 1) || !cb.getPiece(column + 1, row - 1).isWhite) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 1, -1));
-                }
-            }
+    
+    /**
+     * Writes a pawn move into a buffer, 
+     * writing every promotion if the pawn reaches the last rank
+     * @param from the index of the square the pawn is on
+     * @param to the index of the square the pawn moves to
+     * @param flags the flags of the move
+     * @param moves the buffer to write the moves into
+     * @param count how many moves are already in the buffer
+     * @return how many moves are in the buffer afterwards
+     */
+    private static int addPawnMove(int from, int to, int flags, int[] moves, int count) {
+        int row = Bitboard.getRow(to);
+        if(row == 0 || row == 7) {
+            moves[count++] = Move.create(from, to, flags, MoveRecorder.QUEEN);
+            moves[count++] = Move.create(from, to, flags, MoveRecorder.ROOK);
+            moves[count++] = Move.create(from, to, flags, MoveRecorder.BISHOP);
+            moves[count++] = Move.create(from, to, flags, MoveRecorder.KNIGHT);
         } else {
-            if(row == 7) assert false : "Pawns should have promoted already!";
-            if(row == 0) assert false : "Dafuq black pawns shouldn\'t be on the eighth rank";
-            if(ChessBoard.isValidSquare(column - 1, row + 1)) {
-                if(cb.isEmptySquare(column - 1, row + 1) || cb.getPiece(column - 1, row + 1).isWhite) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, -1, 1));
-                }
-            }
-            if(ChessBoard.isValidSquare(column + 1, row + 1)) {
-                if(cb.isEmptySquare(column + 1, row + 1) || cb.getPiece(column + 1, row + 1).isWhite) {
-                    output.add(ChessBoard.shiftSquare(currentPosition, 1, 1));
-                }
-            }
+            moves[count++] = Move.create(from, to, flags);
         }
-        return output;
+        return count;
+    }
+    
+    /**
+     * Determines the square this pawn could capture en passant on
+     * @param cb the current state of the chess game
+     * @return the en passant square as a bitboard, empty if there is none
+     */
+    private long enPassantSquare(Position cb) {
+        int enPassant = cb.getEnPassantIndex();
+        if(enPassant == -1 || Bitboard.getRow(enPassant) != ((isWhite)?2:5)) 
+            return 0L;
+        return Bitboard.bit(enPassant);
+    }
+
+    @Override
+    public int legalCaptures(Position cb, int from, int[] moves, int count) {
+        return addMoves(cb, from, Attacks.pawnAttacks(from, isWhite) & ~cb.getOccupied(isWhite), moves, count);
     }
     
     /**
@@ -186,4 +160,9 @@ public class Pawn extends AbstractPiece {
     public String getCharRepresentation() {
         return "P";
     }
+
+    @Override
+    public int getType() {
+        return MoveRecorder.PAWN;
+    }
 }
\ No newline at end of file
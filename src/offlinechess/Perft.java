@@ -0,0 +1,246 @@
+package offlinechess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable in a number of moves (perft).<br>
+ * <br>
+ * The counts for well-known positions are published, so they check the
+ * move generator, and how fast they are counted measures it. "Divide"
+ * lists the count below each first move, which narrows down a wrong count
+ * to the move that causes it.
+ * @author Jed Wang
+ */
+public final class Perft {
+
+    /**
+     * A position where pieces have to be told apart in SAN by file, 
+     * by rank and by both: two rooks on the a-file, and three queens 
+     * that can reach d4 from b2, b6 and f2
+     */
+    public static final String SAN_FEN = "4k3/8/1Q6/R7/8/8/1Q3Q2/R5K1 w - - 0 1";
+
+    /**
+     * No instantiation.
+     */
+    private Perft() {}
+
+    /**
+     * Counts the positions reachable in a number of moves
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead
+     * @return how many positions there are at that depth
+     */
+    public static long perft(Position cb, int depth) {
+        if(depth <= 0) return 1;
+        return perft(cb, depth, new int[depth][Move.MAX_MOVES]);
+    }
+
+    /**
+     * Counts the positions reachable in a number of moves
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead, at least 1
+     * @param buffers a move buffer for each depth
+     * @return how many positions there are at that depth
+     */
+    private static long perft(Position cb, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.legalMoves(cb, cb.getCurrentPlayer(), moves, 0);
+        // every legal move leads to exactly one position
+        if(depth == 1) return count;
+        long output = 0;
+        for(int i = 0; i < count; i++) {
+            cb.makeMove(moves[i]);
+            output += perft(cb, depth - 1, buffers);
+            cb.unmakeMove();
+        }
+        return output;
+    }
+
+    /**
+     * Counts the positions reachable in a number of moves, checking that 
+     * every move on the way is written in SAN that reads back as the same move
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead
+     * @return how many positions there are at that depth
+     * @throws IllegalStateException if a move does not read back the same
+     */
+    public static long checkSAN(Position cb, int depth) {
+        if(depth <= 0) return 1;
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(cb, cb.getCurrentPlayer(), moves, 0);
+        long output = 0;
+        for(int i = 0; i < count; i++) {
+            String san = MoveRecorder.toSAN(cb, moves[i], moves, count);
+            int read = MoveRecorder.fromSAN(cb, san, moves, count);
+            if(read != moves[i]) 
+                throw new IllegalStateException(san + " reads back as " + Move.toString(read) 
+                        + " instead of " + Move.toString(moves[i]) + " in " + cb.toFEN());
+            cb.makeMove(moves[i]);
+            output += checkSAN(cb, depth - 1);
+            cb.unmakeMove();
+        }
+        return output;
+    }
+
+    /**
+     * Counts the positions reachable below each legal move
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead, including the first
+     * @return the count for each move (See: <code>Move.toString</code>),
+     * in the order the moves were generated
+     */
+    public static Map<String, Long> divide(Position cb, int depth) {
+        return divide(cb, depth, null);
+    }
+
+    /**
+     * Counts the positions reachable below each legal move,
+     * counting the moves in parallel
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead, including the first
+     * @param pool the pool to count in, or null to count on this thread
+     * @return the count for each move (See: <code>Move.toString</code>),
+     * in the order the moves were generated
+     */
+    public static Map<String, Long> divide(Position cb, int depth, ForkJoinPool pool) {
+        if(depth < 1) throw new IllegalArgumentException("Depth must be at least 1");
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(cb, cb.getCurrentPlayer(), moves, 0);
+        long[] counts = new long[count];
+        if(pool == null) {
+            for(int i = 0; i < count; i++) {
+                cb.makeMove(moves[i]);
+                counts[i] = perft(cb, depth - 1);
+                cb.unmakeMove();
+            }
+        } else {
+            MoveTask[] tasks = new MoveTask[count];
+            for(int i = 0; i < count; i++) {
+                tasks[i] = new MoveTask(cb, moves[i], depth - 1);
+                pool.execute(tasks[i]);
+            }
+            for(int i = 0; i < count; i++) {
+                counts[i] = tasks[i].join();
+            }
+        }
+        Map<String, Long> output = new LinkedHashMap<>();
+        for(int i = 0; i < count; i++) {
+            output.put(Move.toString(moves[i]), counts[i]);
+        }
+        return output;
+    }
+
+    /**
+     * Counts the positions reachable in a number of moves,
+     * counting the first moves in parallel
+     * @param cb the current state of the chess game
+     * @param depth how many moves to look ahead
+     * @param pool the pool to count in
+     * @return how many positions there are at that depth
+     */
+    public static long parallelPerft(Position cb, int depth, ForkJoinPool pool) {
+        if(depth <= 1) return perft(cb, depth);
+        long output = 0;
+        for(long count : divide(cb, depth, pool).values()) {
+            output += count;
+        }
+        return output;
+    }
+
+    /**
+     * Counts the positions below one first move on its own copy of the board
+     */
+    private static class MoveTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The board to copy
+         */
+        private final Position cb;
+
+        /**
+         * The first move
+         */
+        private final int move;
+
+        /**
+         * How many moves to look ahead after the first move
+         */
+        private final int depth;
+
+        /**
+         * Creates a new MoveTask.<br>
+         * The board is copied here, on the calling thread,
+         * since the caller keeps changing it
+         * @param cb the current state of the chess game
+         * @param move the first move
+         * @param depth how many moves to look ahead after the first move
+         */
+        public MoveTask(Position cb, int move, int depth) {
+            this.cb = new Position(cb);
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            cb.makeMove(move);
+            return perft(cb, depth);
+        }
+    }
+
+    /**
+     * Runs perft and prints the results.<br>
+     * Usage: <code>Perft depth [threads] [divide | san] ["fen"]</code><br>
+     * threads defaults to 1; "divide" also prints the count below each move; 
+     * "san" checks the SAN of every move instead (See: <code>checkSAN</code>), 
+     * from <code>SAN_FEN</code> unless a FEN is given; 
+     * the FEN defaults to the starting position
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if(args.length < 1) {
+            System.err.println("Usage: Perft depth [threads] [divide | san] [\"fen\"]");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        int threads = 1;
+        boolean divide = false, san = false;
+        String fen = null;
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].equals("divide")) divide = true;
+            else if(args[i].equals("san")) san = true;
+            else if(args[i].indexOf('/') != -1) fen = args[i];
+            else threads = Integer.parseInt(args[i]);
+        }
+        if(san) {
+            Position cb = new Position((fen == null)?SAN_FEN:fen);
+            System.out.println("SAN round trip: " + checkSAN(cb, depth) + " positions");
+            return;
+        }
+        Position cb = new Position((fen == null)?Position.START_FEN:fen);
+        ForkJoinPool pool = (threads > 1)?new ForkJoinPool(threads):null;
+
+        long start = System.nanoTime();
+        long nodes = 0;
+        if(divide || pool != null) {
+            for(Map.Entry<String, Long> entry : divide(cb, depth, pool).entrySet()) {
+                if(divide) System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft(cb, depth);
+        }
+        long time = System.nanoTime() - start;
+        if(pool != null) pool.shutdown();
+
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + time / 1000000 + " ms");
+        System.out.println("Nodes per second: " + (long) (nodes / (time / 1e9)));
+    }
+}
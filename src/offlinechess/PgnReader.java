@@ -0,0 +1,616 @@
+package offlinechess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads games in Portable Game Notation.<br>
+ * <br>
+ * Games are read one at a time from a Reader, so an archive never has to
+ * fit in memory. Comments, variations and numeric annotations are skipped.
+ * Whole archives can also be checked in bulk: the file is memory-mapped,
+ * cut into pieces on game boundaries, and each piece is replayed on its
+ * own thread (See: <code>index</code>).
+ * @author Jed Wang
+ */
+public class PgnReader implements Closeable {
+
+    /**
+     * How many characters are read from a Reader at a time
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The most bytes one bulk-mode task reads
+     */
+    private static final long CHUNK_SIZE = 1L << 28;
+
+    /**
+     * What starts a game in an archive
+     */
+    private static final byte[] GAME_START = "\n[Event ".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The Reader the games are read from, or null if they are read from bytes
+     */
+    private final Reader reader;
+
+    /**
+     * The bytes the games are read from, or null if they are read from a Reader
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * The characters read from the Reader but not yet used
+     */
+    private final char[] buffer;
+
+    /**
+     * Where the next character is in buffer, and how many characters are in it
+     */
+    private int position = 0, limit = 0;
+
+    /**
+     * How far into the input the next character is
+     */
+    private long offset;
+
+    /**
+     * Creates a PgnReader that reads from a Reader
+     * @param reader where to read the games from
+     */
+    public PgnReader(Reader reader) {
+        this.reader = reader;
+        this.bytes = null;
+        buffer = new char[BUFFER_SIZE];
+        offset = 0;
+    }
+
+    /**
+     * Creates a PgnReader that reads a UTF-8 file
+     * @param file the file to read the games from
+     * @throws IOException if the file cannot be opened
+     */
+    public PgnReader(File file) throws IOException {
+        this(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a PgnReader that reads bytes, one character each
+     * @param bytes the bytes to read the games from
+     * @param offset how far into the file the bytes start
+     */
+    private PgnReader(ByteBuffer bytes, long offset) {
+        this.reader = null;
+        this.bytes = bytes;
+        buffer = null;
+        this.offset = offset;
+    }
+
+    /**
+     * Reads the next game
+     * @return the game, or null if there are no more games
+     * @throws IOException if something goes wrong
+     */
+    public Game next() throws IOException {
+        skipWhitespace();
+        if(peek() == -1) return null;
+        Game output = new Game(offset);
+        while(peek() == '[') {
+            readTag(output.tags);
+            skipWhitespace();
+        }
+        while(true) {
+            int c = peek();
+            // a game without a result ends where the next one starts
+            if(c == -1 || c == '[') break;
+            switch(c) {
+                case '{':
+                    skipPast('}');
+                    break;
+                case ';':
+                case '%':
+                    skipPast('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case '$':
+                    read();
+                    readToken();
+                    break;
+                default:
+                    String token = readToken();
+                    if(token.isEmpty()) {
+                        // a stray closing bracket
+                        read();
+                    } else if(isResult(token)) {
+                        output.result = token;
+                        return output;
+                    } else {
+                        token = stripMoveNumber(token);
+                        if(!token.isEmpty()) output.moves.add(token);
+                    }
+                    break;
+            }
+            skipWhitespace();
+        }
+        return output;
+    }
+
+    /**
+     * Reads a tag pair, such as <code>[Event "Casual Game"]</code>
+     * @param tags where to put the tag
+     * @throws IOException if something goes wrong
+     */
+    private void readTag(Map<String, String> tags) throws IOException {
+        read();
+        skipWhitespace();
+        String name = readToken();
+        skipWhitespace();
+        StringBuilder value = new StringBuilder();
+        if(peek() == '"') {
+            read();
+            for(int c = read(); c != -1 && c != '"'; c = read()) {
+                if(c == '\\') c = read();
+                if(c != -1) value.append((char) c);
+            }
+        }
+        skipPast(']');
+        tags.put(name, value.toString());
+    }
+
+    /**
+     * Reads the characters up to the next whitespace or bracket
+     * @return the characters read
+     * @throws IOException if something goes wrong
+     */
+    private String readToken() throws IOException {
+        StringBuilder output = new StringBuilder(8);
+        for(int c = peek(); c != -1 && !Character.isWhitespace(c) && "{}()[];$".indexOf(c) < 0; c = peek()) {
+            output.append((char) read());
+        }
+        return output.toString();
+    }
+
+    /**
+     * Skips a variation, along with the variations and comments in it
+     * @throws IOException if something goes wrong
+     */
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        for(int c = read(); c != -1; c = read()) {
+            if(c == '{') skipPast('}');
+            else if(c == '(') depth++;
+            else if(c == ')' && --depth == 0) return;
+        }
+    }
+
+    /**
+     * Skips every character up to and including one
+     * @param end the character to stop after
+     * @throws IOException if something goes wrong
+     */
+    private void skipPast(char end) throws IOException {
+        for(int c = read(); c != -1 && c != end; c = read());
+    }
+
+    /**
+     * Skips the whitespace before the next character
+     * @throws IOException if something goes wrong
+     */
+    private void skipWhitespace() throws IOException {
+        for(int c = peek(); c != -1 && Character.isWhitespace(c); c = peek()) {
+            read();
+        }
+    }
+
+    /**
+     * Returns the next character without using it
+     * @return the next character, or -1 if there are none left
+     * @throws IOException if something goes wrong
+     */
+    private int peek() throws IOException {
+        if(bytes != null) {
+            return (bytes.hasRemaining())?bytes.get(bytes.position()) & 0xFF:-1;
+        }
+        if(position == limit) {
+            limit = reader.read(buffer);
+            position = 0;
+            if(limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Uses the next character
+     * @return the next character, or -1 if there are none left
+     * @throws IOException if something goes wrong
+     */
+    private int read() throws IOException {
+        int output = peek();
+        if(output == -1) return -1;
+        if(bytes != null) bytes.get();
+        else position++;
+        offset++;
+        return output;
+    }
+
+    /**
+     * Determines whether a token is a game result
+     * @param token the token
+     * @return whether it is "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1")
+                || token.equals("1/2-1/2") || token.equals(PgnWriter.UNFINISHED);
+    }
+
+    /**
+     * Removes the move number from the front of a token,
+     * such as "12." or "12..." from "12...Nf6"
+     * @param token the token
+     * @return the rest of the token
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while(i < token.length() && Character.isDigit(token.charAt(i))) i++;
+        // 0-0 is castling, not a move number
+        if(i == token.length() || token.charAt(i) != '.') return token;
+        while(i < token.length() && token.charAt(i) == '.') i++;
+        return token.substring(i);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(reader != null) reader.close();
+    }
+
+    /**
+     * A game that has been read
+     */
+    public static class Game {
+
+        /**
+         * The tags of the game, in the order they were read
+         */
+        private final Map<String, String> tags = new LinkedHashMap<>();
+
+        /**
+         * The moves of the game in Standard Algebraic Notation
+         */
+        private final List<String> moves = new ArrayList<>();
+
+        /**
+         * The result at the end of the move text
+         */
+        private String result = PgnWriter.UNFINISHED;
+
+        /**
+         * How far into the input the game starts
+         */
+        private final long offset;
+
+        /**
+         * Creates an empty game
+         * @param offset how far into the input the game starts
+         */
+        private Game(long offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * Returns the tags of the game
+         * @return the names and values of the tags, in the order they were read
+         */
+        public Map<String, String> getTags() {
+            return tags;
+        }
+
+        /**
+         * Returns the value of one tag
+         * @param name the name of the tag
+         * @return the value of the tag, or null if the game does not have it
+         */
+        public String getTag(String name) {
+            return tags.get(name);
+        }
+
+        /**
+         * Returns the moves of the game
+         * @return the moves in Standard Algebraic Notation
+         */
+        public List<String> getMoves() {
+            return moves;
+        }
+
+        /**
+         * Returns the result at the end of the move text
+         * @return "1-0", "0-1", "1/2-1/2" or "*"
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * Returns where the game starts, in characters,
+         * or in bytes for the bulk mode
+         * @return how far into the input the game starts
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Plays the moves of the game from the starting position, 
+         * or from the one in its FEN tag
+         * @return the position at the end of the game
+         * @throws IllegalArgumentException if a move is not legal
+         */
+        public Position replay() {
+            return replay(new int[Move.MAX_MOVES]);
+        }
+
+        /**
+         * Plays the moves of the game from the starting position, 
+         * or from the one in its FEN tag
+         * @param buffer a buffer to generate the moves into
+         * @return the position at the end of the game
+         * @throws IllegalArgumentException if a move is not legal
+         */
+        private Position replay(int[] buffer) {
+            String fen = tags.get("FEN");
+            Position output = (fen == null)?new Position():Position.fromFEN(fen);
+            for(String san : moves) {
+                output.makeMove(MoveRecorder.fromSAN(output, san, buffer));
+            }
+            return output;
+        }
+    }
+
+    /**
+     * What bulk mode found out about one game in an archive
+     */
+    public static class Entry {
+
+        /**
+         * Where the game starts in the file, in bytes
+         */
+        private final long offset;
+
+        /**
+         * How many moves the game has
+         */
+        private final int plies;
+
+        /**
+         * The result of the game
+         */
+        private final String result;
+
+        /**
+         * Why the game is not valid, or null if it is
+         */
+        private final String error;
+
+        /**
+         * Creates a new Entry
+         * @param offset where the game starts in the file, in bytes
+         * @param plies how many moves the game has
+         * @param result the result of the game
+         * @param error why the game is not valid, or null if it is
+         */
+        private Entry(long offset, int plies, String result, String error) {
+            this.offset = offset;
+            this.plies = plies;
+            this.result = result;
+            this.error = error;
+        }
+
+        /**
+         * Returns where the game starts in the file
+         * @return where the game starts, in bytes
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns how many moves the game has
+         * @return how many moves the game has
+         */
+        public int getPlies() {
+            return plies;
+        }
+
+        /**
+         * Returns the result of the game
+         * @return "1-0", "0-1", "1/2-1/2" or "*"
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * Returns why the game is not valid
+         * @return what is wrong with the game, or null if nothing is
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Determines whether every move of the game is legal
+         * and the result matches its tag
+         * @return whether the game is valid
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Checks and indexes every game in an archive, on several threads.<br>
+     * The file is read as ISO-8859-1, which PGN is written in
+     * @param archive the archive
+     * @param threads how many threads to use
+     * @return what was found out about each game, in the order of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Entry> index(File archive, int threads) throws IOException {
+        try(FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(threads * 4L, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            long[] starts = new long[chunks + 1];
+            starts[chunks] = size;
+            for(int i = 1; i < chunks; i++) {
+                starts[i] = nextGame(channel, Math.max(starts[i - 1], size / chunks * i));
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<IndexTask> tasks = new ArrayList<>();
+                for(int i = 0; i < chunks; i++) {
+                    long length = starts[i + 1] - starts[i];
+                    if(length == 0) continue;
+                    if(length > Integer.MAX_VALUE) throw new IOException("Game too long at " + starts[i]);
+                    IndexTask task = new IndexTask(
+                            channel.map(FileChannel.MapMode.READ_ONLY, starts[i], length), starts[i]);
+                    pool.execute(task);
+                    tasks.add(task);
+                }
+                List<Entry> output = new ArrayList<>();
+                for(IndexTask task : tasks) {
+                    output.addAll(task.join());
+                }
+                return output;
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Finds where the first game starting at or after an offset starts
+     * @param channel the archive
+     * @param from the offset to look from
+     * @return where the game starts, or the size of the file if none does
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextGame(FileChannel channel, long from) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BUFFER_SIZE);
+        long size = channel.size();
+        // look from one byte back, for the line break before a game right at the offset
+        for(long start = Math.max(0, from - 1); start < size; start += BUFFER_SIZE - GAME_START.length) {
+            window.clear();
+            channel.read(window, start);
+            window.flip();
+            for(int i = 0; i + GAME_START.length <= window.limit(); i++) {
+                int j = 0;
+                while(j < GAME_START.length && window.get(i + j) == GAME_START[j]) j++;
+                if(j == GAME_START.length) return start + i + 1;
+            }
+            if(window.limit() < BUFFER_SIZE) break;
+        }
+        return size;
+    }
+
+    /**
+     * Replays the games in one piece of an archive
+     */
+    private static class IndexTask extends RecursiveTask<List<Entry>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The piece of the archive, which starts and ends on game boundaries
+         */
+        private final ByteBuffer bytes;
+
+        /**
+         * Where the piece starts in the file
+         */
+        private final long offset;
+
+        /**
+         * Creates a new IndexTask
+         * @param bytes the piece of the archive
+         * @param offset where the piece starts in the file
+         */
+        public IndexTask(ByteBuffer bytes, long offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            List<Entry> output = new ArrayList<>();
+            int[] buffer = new int[Move.MAX_MOVES];
+            try(PgnReader pr = new PgnReader(bytes, offset)) {
+                for(Game game = pr.next(); game != null; game = pr.next()) {
+                    String error = null;
+                    try {
+                        game.replay(buffer);
+                        String tag = game.getTag("Result");
+                        if(tag != null && !tag.equals(game.getResult()))
+                            error = "Result " + game.getResult() + " does not match tag " + tag;
+                    } catch(IllegalArgumentException iae) {
+                        error = iae.getMessage();
+                    }
+                    output.add(new Entry(game.getOffset(), game.getMoves().size(), game.getResult(), error));
+                }
+            } catch(IOException ioe) {
+                // bytes in memory cannot fail to be read
+                throw new IllegalStateException(ioe);
+            }
+            return output;
+        }
+    }
+
+    /**
+     * Checks every game in an archive and prints how many are valid.<br>
+     * Usage: <code>PgnReader archive [threads]</code><br>
+     * threads defaults to the number of processors
+     * @param args the command line arguments
+     * @throws IOException if the archive cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: PgnReader archive [threads]");
+            System.exit(1);
+        }
+        int threads = (args.length > 1)?Integer.parseInt(args[1]):Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        List<Entry> entries = index(new File(args[0]), threads);
+        long time = System.nanoTime() - start;
+
+        long valid = 0, plies = 0;
+        for(Entry entry : entries) {
+            plies += entry.getPlies();
+            if(entry.isValid()) valid++;
+            else System.out.println(entry.getOffset() + ": " + entry.getError());
+        }
+        System.out.println("Games: " + entries.size() + " (" + valid + " valid)");
+        System.out.println("Moves: " + plies);
+        System.out.println("Time: " + time / 1000000 + " ms");
+        System.out.println("Games per second: " + (long) (entries.size() / (time / 1e9)));
+    }
+}
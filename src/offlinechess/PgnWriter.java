@@ -0,0 +1,254 @@
+package offlinechess;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in Portable Game Notation.<br>
+ * <br>
+ * Tags and moves are written to the underlying Writer as they come,
+ * and the move text is wrapped as it goes, so a game never has to be
+ * built up in memory first. Many games can be written one after another,
+ * which is how an archive file is appended to.
+ * @author Jed Wang
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+    /**
+     * The longest a line of move text may be
+     */
+    public static final int LINE_LENGTH = 80;
+
+    /**
+     * The result of a game that is still going on
+     */
+    public static final String UNFINISHED = "*";
+
+    /**
+     * How many characters the archive writer buffers
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The format of the Date tag
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    /**
+     * Where the games are written
+     */
+    private final Writer out;
+
+    /**
+     * How long the current line of move text is
+     */
+    private int column = 0;
+
+    /**
+     * How many moves have been written in the current game
+     */
+    private int ply = 0;
+
+    /**
+     * How many moves had been made before the current game's first move,
+     * counted from move 1 with white to move
+     */
+    private int firstPly = 0;
+
+    /**
+     * Creates a PgnWriter that writes to a Writer
+     * @param out where to write the games
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a PgnWriter that writes to an OutputStream in UTF-8
+     * @param out where to write the games
+     */
+    public PgnWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * Creates a PgnWriter that adds games to the end of an archive file
+     * @param archive the file to append to, which is created if needed
+     * @return a PgnWriter that appends to the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PgnWriter append(File archive) throws IOException {
+        return new PgnWriter(new FileOutputStream(archive, true));
+    }
+
+    /**
+     * Writes the Seven Tag Roster, which starts a game.<br>
+     * Unknown values should be "?"
+     * @param event the name of the event
+     * @param site where the game was played
+     * @param date when the game was played, as YYYY.MM.DD
+     * @param round the round of the event
+     * @param white the name of the white player
+     * @param black the name of the black player
+     * @param result the result (See: <code>MoveRecorder.getOutcome</code>)
+     * @throws IOException if something goes wrong
+     */
+    public void writeTags(String event, String site, String date, String round,
+            String white, String black, String result) throws IOException {
+        writeTag("Event", event);
+        writeTag("Site", site);
+        writeTag("Date", date);
+        writeTag("Round", round);
+        writeTag("White", white);
+        writeTag("Black", black);
+        writeTag("Result", result);
+    }
+
+    /**
+     * Writes more tags, after the Seven Tag Roster
+     * @param tags the names and values of the tags
+     * @throws IOException if something goes wrong
+     */
+    public void writeTags(Map<String, String> tags) throws IOException {
+        for(Map.Entry<String, String> tag : tags.entrySet()) {
+            writeTag(tag.getKey(), tag.getValue());
+        }
+    }
+
+    /**
+     * Writes one tag
+     * @param name the name of the tag
+     * @param value the value of the tag
+     * @throws IOException if something goes wrong
+     */
+    public void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') out.write('\\');
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    /**
+     * Writes the SetUp and FEN tags of a game that did not start
+     * from the standard starting position.<br>
+     * Its moves are then numbered on from that position
+     * @param fen the starting position in Forsyth-Edwards Notation
+     * @throws IOException if something goes wrong
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public void writeSetUp(String fen) throws IOException {
+        Position start = Position.fromFEN(fen);
+        writeTag("SetUp", "1");
+        writeTag("FEN", fen);
+        firstPly = (start.getFullmoveNumber() - 1) * 2 + ((start.getCurrentPlayer())?0:1);
+    }
+
+    /**
+     * Writes the next move of the current game,
+     * with its move number if it is white's or the first of the game
+     * @param san the move in Standard Algebraic Notation
+     * @throws IOException if something goes wrong
+     */
+    public void writeMove(String san) throws IOException {
+        if(ply == 0) out.write('\n');
+        int number = (firstPly + ply) / 2 + 1;
+        if(((firstPly + ply) & 1) == 0 || ply == 0) {
+            // the number and the move are kept on the same line
+            String token = number + (((firstPly + ply) & 1) == 0?".":"...");
+            writeToken(token, token.length() + 1 + san.length());
+            writeToken(san, 0);
+        } else {
+            writeToken(san, san.length());
+        }
+        ply++;
+    }
+
+    /**
+     * Writes some moves of the current game
+     * @param moves the moves in Standard Algebraic Notation
+     * @throws IOException if something goes wrong
+     */
+    public void writeMoves(List<String> moves) throws IOException {
+        for(String san : moves) {
+            writeMove(san);
+        }
+    }
+
+    /**
+     * Ends the current game with its result and a blank line
+     * @param result the result (See: <code>MoveRecorder.getOutcome</code>)
+     * @throws IOException if something goes wrong
+     */
+    public void endGame(String result) throws IOException {
+        if(ply == 0) out.write('\n');
+        writeToken(result, result.length());
+        out.write("\n\n");
+        column = 0;
+        ply = 0;
+        firstPly = 0;
+    }
+
+    /**
+     * Writes a whole game with the Seven Tag Roster, dated today,
+     * and the SetUp and FEN tags if it did not start from the standard position
+     * @param mr the moves of the game
+     * @param white the name of the white player
+     * @param black the name of the black player
+     * @throws IOException if something goes wrong
+     */
+    public void writeGame(MoveRecorder mr, String white, String black) throws IOException {
+        writeTags("Casual Game", "Offline Chess", LocalDate.now().format(DATE_FORMAT),
+                "-", white, black, mr.getOutcome());
+        if(!mr.isStandardStart()) writeSetUp(mr.getStartFEN());
+        writeMoves(mr.getMoves());
+        endGame(mr.getOutcome());
+    }
+
+    /**
+     * Writes a token of move text, starting a new line if it does not fit
+     * @param token the token
+     * @param length how much room to leave for the token,
+     * and whatever must be on its line
+     * @throws IOException if something goes wrong
+     */
+    private void writeToken(String token, int length) throws IOException {
+        if(column > 0) {
+            if(column + 1 + length > LINE_LENGTH) {
+                out.write('\n');
+                column = 0;
+            } else {
+                out.write(' ');
+                column++;
+            }
+        }
+        out.write(token);
+        column += token.length();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
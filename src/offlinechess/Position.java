@@ -0,0 +1,1338 @@
+package offlinechess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A chess position without anything to draw it: the pieces, whose turn it is, 
+ * the castling and en passant rights and the moves that led to it.<br>
+ * It can be copied cheaply, or changed and changed back 
+ * with makeMove and unmakeMove
+ * @author Jed Wang
+ */
+public class Position {
+    /**
+     * The chess board
+     */
+    protected AbstractPiece[][] board;
+    
+    /**
+     * The bitboards of the pieces, indexed by <code>Bitboard.pieceIndex</code>.<br>
+     * Kept in sync with board
+     */
+    private long[] bitboards;
+    
+    /**
+     * The squares occupied by the white and the black pieces
+     */
+    private long whiteOccupied, blackOccupied;
+    
+    /**
+     * The material signature: a 4-bit count of each kind of piece, 
+     * in the fields <code>materialShift</code> gives.<br>
+     * Kept in sync with board
+     */
+    private long material;
+    
+    /**
+     * Whether white is the side to move
+     */
+    private boolean playerIsWhite = true;
+    
+    /**
+     * The index of the square open for en passant.<br>
+     * -1 stands for no open squares<br>
+     * Controls en passant
+     */
+    private int enPassant = -1;
+    
+    /**
+     * Which sides can still castle to which side.<br>
+     * A combination of the *_KINGSIDE and *_QUEENSIDE flags
+     */
+    private int castlingRights = ALL_CASTLING;
+    
+    /**
+     * How many moves have been made since the last capture or pawn move.<br>
+     * Controls the fifty-move rule
+     */
+    private int halfmoveClock = 0;
+    
+    /**
+     * The number of the current move, which starts at 1 
+     * and goes up after each of black's moves
+     */
+    private int fullmoveNumber = 1;
+    
+    /**
+     * What is already known about the current position.<br>
+     * A combination of the *_KNOWN flags and the answers they guard
+     */
+    private int status;
+    
+    /**
+     * The Zobrist key of the position status belongs to
+     */
+    private long statusKey;
+    
+    /**
+     * The indexes of the white and the black king's squares
+     */
+    private int[] kingSquares;
+    
+    /**
+     * How many moves are on the undo stack
+     */
+    private int ply = 0;
+    
+    /**
+     * The undo stack: the moves made
+     */
+    private int[] undoMoves;
+    
+    /**
+     * The undo stack: the pieces that moved and the pieces they captured
+     */
+    private AbstractPiece[] undoMoved, undoCaptured;
+    
+    /**
+     * The undo stack: the en passant square, castling rights, 
+     * king square, current player and halfmove clock before each move, 
+     * packed into an int
+     */
+    private int[] undoStates;
+    
+    /**
+     * The undo stack: the Zobrist key of the position before each move.<br>
+     * Also the history that repetitions are looked for in
+     */
+    private long[] undoKeys;
+    
+    /**
+     * The Zobrist key of the current position (See: <code>Zobrist</code>)
+     */
+    private long key;
+    
+    /**
+     * A flag which represents White can castle kingside.
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    
+    /**
+     * A flag which represents White can castle queenside.
+     */
+    public static final int WHITE_QUEENSIDE = 2;
+    
+    /**
+     * A flag which represents Black can castle kingside.
+     */
+    public static final int BLACK_KINGSIDE = 4;
+    
+    /**
+     * A flag which represents Black can castle queenside.
+     */
+    public static final int BLACK_QUEENSIDE = 8;
+    
+    /**
+     * All of the castling flags.
+     */
+    public static final int ALL_CASTLING = 15;
+    
+    /**
+     * The starting position in Forsyth-Edwards Notation
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    
+    /**
+     * The letters of the pieces in FEN, by <code>Bitboard.pieceIndex</code>
+     */
+    private static final String FEN_PIECES = "PNBRQKpnbrqk";
+    
+    /**
+     * The letters of the castling flags in FEN, in the order of their bits
+     */
+    private static final String FEN_CASTLING = "KQkq";
+    
+    /**
+     * The positions parsed most recently by fromFEN
+     */
+    private static final FenCache FEN_CACHE = new FenCache(64);
+    
+    /**
+     * The castling rights kept when a piece moves from or to each square
+     */
+    private static final int[] CASTLING_MASKS = new int[64];
+    
+    /**
+     * Status flags: whether white's and black's checks and legal moves 
+     * are known, and if so, the answers
+     */
+    private static final int WHITE_CHECK_KNOWN = 1, WHITE_IN_CHECK = 2, 
+            BLACK_CHECK_KNOWN = 4, BLACK_IN_CHECK = 8, 
+            WHITE_MOVES_KNOWN = 16, WHITE_HAS_MOVE = 32, 
+            BLACK_MOVES_KNOWN = 64, BLACK_HAS_MOVE = 128;
+    
+    /**
+     * The material fields of the pawns, rooks and queens of both sides
+     */
+    private static final long HEAVY_MATERIAL;
+    
+    /**
+     * How many pawns each kind of piece is worth, by the number
+     */
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 0};
+    
+    /**
+     * How many moves the undo stack starts with room for
+     */
+    private static final int UNDO_CAPACITY = 256;
+    
+    /**
+     * The largest halfmove clock the undo stack has room for
+     */
+    private static final int MAX_HALFMOVE_CLOCK = (1 << 14) - 1;
+    
+    /**
+     * The largest fullmove number a FEN may have
+     */
+    private static final int MAX_FULLMOVE_NUMBER = 99999999;
+    
+    /**
+     * static init
+     */
+    static {
+        for(int i = 0; i < CASTLING_MASKS.length; i++) {
+            CASTLING_MASKS[i] = ALL_CASTLING;
+        }
+        CASTLING_MASKS[Bitboard.toIndex(4, 7)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[Bitboard.toIndex(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[Bitboard.toIndex(0, 7)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[Bitboard.toIndex(4, 0)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[Bitboard.toIndex(7, 0)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASKS[Bitboard.toIndex(0, 0)] &= ~BLACK_QUEENSIDE;
+        
+        long heavy = 0L;
+        for(boolean isWhite : new boolean[]{true, false}) {
+            for(int whichPiece : new int[]{MoveRecorder.PAWN, MoveRecorder.ROOK, MoveRecorder.QUEEN}) {
+                heavy |= 15L << materialShift(whichPiece, isWhite, false);
+            }
+        }
+        HEAVY_MATERIAL = heavy;
+    }
+    
+    /**
+     * Creates the starting position
+     */
+    public Position() {
+        allocate();
+        addPieces();
+    }
+    
+    /**
+     * Creates a position written in Forsyth-Edwards Notation.<br>
+     * The move counters may be left off, as in EPD
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public Position(String fen) {
+        allocate();
+        parseFEN(fen);
+    }
+    
+    /**
+     * Creates the arrays of an empty position
+     */
+    private void allocate() {
+        board = new AbstractPiece[8][8];
+        bitboards = new long[12];
+        kingSquares = new int[2];
+        undoMoves = new int[UNDO_CAPACITY];
+        undoMoved = new AbstractPiece[UNDO_CAPACITY];
+        undoCaptured = new AbstractPiece[UNDO_CAPACITY];
+        undoStates = new int[UNDO_CAPACITY];
+        undoKeys = new long[UNDO_CAPACITY];
+    }
+    
+    /**
+     * Copies a position, along with the moves that led to it
+     * @param p the position to copy
+     */
+    public Position(Position p) {
+        board = new AbstractPiece[p.board.length][];
+        for(int i = 0; i < board.length; i++) {
+            board[i] = p.board[i].clone();
+        }
+        bitboards = p.bitboards.clone();
+        whiteOccupied = p.whiteOccupied;
+        blackOccupied = p.blackOccupied;
+        material = p.material;
+        playerIsWhite = p.playerIsWhite;
+        enPassant = p.enPassant;
+        castlingRights = p.castlingRights;
+        halfmoveClock = p.halfmoveClock;
+        fullmoveNumber = p.fullmoveNumber;
+        kingSquares = p.kingSquares.clone();
+        status = p.status;
+        statusKey = p.statusKey;
+        ply = p.ply;
+        undoMoves = p.undoMoves.clone();
+        undoMoved = p.undoMoved.clone();
+        undoCaptured = p.undoCaptured.clone();
+        undoStates = p.undoStates.clone();
+        undoKeys = p.undoKeys.clone();
+        key = p.key;
+    }
+    
+    /**
+     * Adds the starting pieces to a chessboard.
+     */
+    private void addPieces() {
+        final int[] backRank = {
+            MoveRecorder.ROOK, MoveRecorder.KNIGHT, MoveRecorder.BISHOP, MoveRecorder.QUEEN, 
+            MoveRecorder.KING, MoveRecorder.BISHOP, MoveRecorder.KNIGHT, MoveRecorder.ROOK
+        };
+        for(int i = 0;i<8;i++) {
+            board[i][0] = AbstractPiece.of(backRank[i], false);
+            board[i][1] = AbstractPiece.of(MoveRecorder.PAWN, false);
+            board[i][6] = AbstractPiece.of(MoveRecorder.PAWN, true);
+            board[i][7] = AbstractPiece.of(backRank[i], true);
+        }
+        
+        rebuildBitboards();
+        resetKingPos();
+        key = Zobrist.hash(this);
+    }
+    
+    /**
+     * Determines which piece occupies a square
+     * @param square a square
+     * @return the piece on that square, and if none, null
+     */
+    public AbstractPiece getPiece(String square) {
+        if(isValidSquare(square)) {
+            return board[getColumn(square)][getRow(square)];
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Determines which piece occupies a space represented by ABSOLUTE coordinates<br>
+     * i.e. (0, 0) represents the top left corner
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return the piece on that square, and if none, null
+     */
+    public AbstractPiece getPiece(int col, int row) {
+        if(isValidSquare(col, row)) {
+            return board[col][row];
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Determines which piece occupies a square
+     * @param index the index of a square (See: <code>Bitboard.toIndex</code>)
+     * @return the piece on that square, and if none, null
+     */
+    public AbstractPiece getPiece(int index) {
+        return board[Bitboard.getColumn(index)][Bitboard.getRow(index)];
+    }
+    
+    /**
+     * Determines whether a square is empty
+     * @param square a square
+     * @return whether that square is empty
+     */
+    public boolean isEmptySquare(String square) {
+        return getPiece(square) == null;
+    }
+    
+    /**
+     * Determines whether a space represented by ABSOLUTE coordinates is empty
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return whether that square is empty
+     */
+    public boolean isEmptySquare(int col, int row) {
+        return getPiece(col, row) == null;
+    }
+    
+    /**
+     * Determines the validity of the square
+     * @param s a square
+     * @return whether the square is valid
+     */
+    public static boolean isValidSquare(String s) {
+        if(s == null) return false;
+        if(s.length() == 2) {
+            int col = s.charAt(0)-'a', 
+                    row = 8 - Integer.parseInt(s.charAt(1) + "");
+            return Character.isLowerCase(s.charAt(0)) && 
+                    Character.isDigit(s.charAt(1)) && isValidSquare(col, row);
+        } else return false;
+    }
+    
+    /**
+     * Determines the validity of the square
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return whether the square is valid
+     */
+    public static boolean isValidSquare(int col, int row) {
+        return col >= 0 && col <= 7 && row >= 0 && row <= 7;
+    }
+    
+    /**
+     * Determines which column a square is referring to<br>
+     * <br>
+     * The columns are ordered as such:<br>
+     * |_|_|_|_|_|_|_|_|<br>
+     * |0 1 2 3 4 5 6 7<br>
+     * |a b c d e f g h
+     * @param s a square
+     * @return which column the String is referring to
+     */
+    public static int getColumn(String s) {
+        if(isValidSquare(s)) {
+            return s.charAt(0)-'a';
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Determines which row a square is referring to<br>
+     * <br>
+     * The rows are ordered as such:<br>
+     * ____<br>
+     * 0 |_<br>
+     * 1 |_ <br>
+     * 2 |_<br>
+     * 3 |_<br>
+     * 4 |_<br>
+     * 5 |_<br>
+     * 6 |_<br>
+     * 7 |_<br>
+     * ___W
+     * @param s the square
+     * @return the column / file
+     */
+    public static int getRow(String s) {
+        if(isValidSquare(s)) {
+            return 8 - Integer.parseInt(s.charAt(1) + "");
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Determines where a square is after a shift (a.k.a. moving it left and right, up and down)
+     * @param col current column
+     * @param row current row
+     * @param colShift how much to shift the columns
+     * @param rowShift how much to shift the rows
+     * @return the shifted square
+     */
+    public static String shiftSquare(int col, int row, int colShift, int rowShift) {
+        if(isValidSquare(col, row)) {
+            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
+            if(isValidSquare(shiftedCol, shiftedRow)) {
+                return toSquare(shiftedCol, shiftedRow);
+            } else throw new IllegalArgumentException("Invalid shift");
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Determines where a square is after a shift (a.k.a. moving it left and right, up and down)
+     * @param s the current square
+     * @param colShift how much to shift the columns
+     * @param rowShift how much to shift the rows
+     * @return the shifted square
+     */
+    public static String shiftSquare(String s, int colShift, int rowShift) {
+        if(isValidSquare(s)) {
+            int col = getColumn(s), row = getRow(s);
+            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
+            if(isValidSquare(shiftedCol, shiftedRow)) {
+                return toSquare(shiftedCol, shiftedRow);
+            } else throw new IllegalArgumentException("Invalid shift");
+        } else throw new IllegalArgumentException("Invalid square");
+    }
+    
+    /**
+     * Checks if a shift is valid
+     * @param col current column
+     * @param row current row
+     * @param colShift how much to shift the columns
+     * @param rowShift how much to shift the rows
+     * @return whether the shift is valid
+     */
+    public static boolean isValidShift(int col, int row, int colShift, int rowShift) {
+        if(isValidSquare(col, row)) {
+            int shiftedCol = col + colShift, shiftedRow = row + rowShift;
+            return isValidSquare(shiftedCol, shiftedRow);
+        } else return false;
+    }
+    
+    /**
+     * Checks if this shift is valid
+     * @param s current square
+     * @param colShift how much to shift the columns
+     * @param rowShift how much to shift the rows
+     * @return whether the shift is valid
+     */
+    public static boolean isValidShift(String s, int colShift, int rowShift) {
+        return isValidShift(
+                getColumn(s), getRow(s), 
+                colShift, rowShift
+        );
+    }
+    
+    /**
+     * Determines the square represented by the row and column
+     * @param column the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return the square that is represented by the row and column
+     */
+    public static String toSquare(int column, int row) {
+        return "" + (char)('a' + column) + (8 - row);
+    }
+    
+    /**
+     * Determines whether one side has any legal move.<br>
+     * The answer is remembered for the current position, since checking 
+     * for checkmate and stalemate after a move asks more than once
+     * @param isWhite whether the side is white
+     * @return whether the side has a legal move
+     */
+    public boolean hasAnyLegalMove(boolean isWhite) {
+        int known = (isWhite)?WHITE_MOVES_KNOWN:BLACK_MOVES_KNOWN;
+        int answer = (isWhite)?WHITE_HAS_MOVE:BLACK_HAS_MOVE;
+        if((getStatus() & known) == 0) {
+            status |= known | ((MoveGenerator.hasLegalMove(this, isWhite))?answer:0);
+        }
+        return (status & answer) != 0;
+    }
+    
+    /**
+     * Returns what is known about the current position, 
+     * forgetting it if the position has changed
+     * @return a combination of the status flags
+     */
+    private int getStatus() {
+        if(statusKey != key) {
+            status = 0;
+            statusKey = key;
+        }
+        return status;
+    }
+    
+    /**
+     * Makes a move, remembering enough to take it back with unmakeMove
+     * @param move the move to make (See: <code>Move</code>)
+     */
+    public void makeMove(int move) {
+        int from = Move.getFrom(move), to = Move.getTo(move);
+        AbstractPiece piece = getPiece(from);
+        boolean isWhite = piece.isWhite;
+        int captureSquare = (Move.isEnPassant(move))?to + ((isWhite)?8:-8):to;
+        if(ply == undoMoves.length) growUndoStack();
+        undoMoves[ply] = move;
+        undoMoved[ply] = piece;
+        undoCaptured[ply] = getPiece(captureSquare);
+        undoStates[ply] = (enPassant + 1) | (castlingRights << 7) 
+                | (kingSquares[(isWhite)?0:1] << 11) | ((playerIsWhite)?1 << 17:0) 
+                | (halfmoveClock << 18);
+        undoKeys[ply] = key;
+        ply++;
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(this) 
+                ^ Zobrist.side(playerIsWhite);
+        
+        if(Move.isEnPassant(move)) setSquare(captureSquare, null);
+        setSquare(from, null);
+        setSquare(to, (Move.isPromotion(move))?promoted(Move.getPromotion(move), isWhite):piece);
+        if(Move.isCastling(move)) {
+            if(to > from) {
+                // Castling Kingside
+                setSquare(to - 1, getPiece(to + 1));
+                setSquare(to + 1, null);
+            } else {
+                // Castling Queenside
+                setSquare(to + 1, getPiece(to - 2));
+                setSquare(to - 2, null);
+            }
+        }
+        if(piece.getType() == MoveRecorder.KING) kingSquares[(isWhite)?0:1] = to;
+        enPassant = (Move.isDoublePush(move))?(from + to) / 2:-1;
+        castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        if(Move.isCapture(move) || piece.getType() == MoveRecorder.PAWN) halfmoveClock = 0;
+        else if(halfmoveClock < MAX_HALFMOVE_CLOCK) halfmoveClock++;
+        if(!isWhite) fullmoveNumber++;
+        playerIsWhite = !isWhite;
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(this) 
+                ^ Zobrist.side(playerIsWhite);
+    }
+    
+    /**
+     * Takes back the last move made with makeMove
+     */
+    public void unmakeMove() {
+        if(ply == 0) throw new IllegalStateException("No move to take back");
+        ply--;
+        int move = undoMoves[ply], state = undoStates[ply];
+        int from = Move.getFrom(move), to = Move.getTo(move);
+        AbstractPiece piece = undoMoved[ply];
+        boolean isWhite = piece.isWhite;
+        
+        if(Move.isCastling(move)) {
+            if(to > from) {
+                setSquare(to + 1, getPiece(to - 1));
+                setSquare(to - 1, null);
+            } else {
+                setSquare(to - 2, getPiece(to + 1));
+                setSquare(to + 1, null);
+            }
+        }
+        setSquare(to, null);
+        setSquare(from, piece);
+        if(Move.isEnPassant(move)) {
+            setSquare(to + ((isWhite)?8:-8), undoCaptured[ply]);
+        } else {
+            setSquare(to, undoCaptured[ply]);
+        }
+        undoMoved[ply] = null;
+        undoCaptured[ply] = null;
+        
+        enPassant = (state & 0x7F) - 1;
+        castlingRights = (state >>> 7) & 0xF;
+        kingSquares[(isWhite)?0:1] = (state >>> 11) & 0x3F;
+        playerIsWhite = ((state >>> 17) & 1) != 0;
+        halfmoveClock = state >>> 18;
+        if(!isWhite) fullmoveNumber--;
+        key = undoKeys[ply];
+    }
+    
+    /**
+     * Doubles the room on the undo stack
+     */
+    private void growUndoStack() {
+        int capacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoMoved = Arrays.copyOf(undoMoved, capacity);
+        undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+        undoStates = Arrays.copyOf(undoStates, capacity);
+        undoKeys = Arrays.copyOf(undoKeys, capacity);
+    }
+    
+    /**
+     * Returns the piece a pawn promotes to
+     * @param toWhatPiece to what piece to promote to
+     * @param isWhite whether the piece is white
+     * @return the piece
+     */
+    protected static AbstractPiece promoted(int toWhatPiece, boolean isWhite) {
+        switch(toWhatPiece) {
+            case MoveRecorder.BISHOP:
+            case MoveRecorder.KNIGHT:
+            case MoveRecorder.QUEEN:
+            case MoveRecorder.ROOK:
+                return AbstractPiece.of(toWhatPiece, isWhite);
+            default:
+                throw new IllegalArgumentException("Unknown piece" + toWhatPiece);
+        }
+    }
+    
+    /**
+     * Places a piece on a square and updates the bitboards
+     * @param index the index of the square
+     * @param ap the piece to place, or null to empty the square
+     */
+    private void setSquare(int index, AbstractPiece ap) {
+        setSquare(Bitboard.getColumn(index), Bitboard.getRow(index), ap);
+    }
+    
+    /**
+     * Places a piece on a square and updates the bitboards
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @param ap the piece to place, or null to empty the square
+     */
+    protected void setSquare(int col, int row, AbstractPiece ap) {
+        long bit = Bitboard.bit(col, row);
+        AbstractPiece old = board[col][row];
+        if(old != null) {
+            bitboards[Bitboard.pieceIndex(old.getType(), old.isWhite)] &= ~bit;
+            if(old.isWhite) whiteOccupied &= ~bit;
+            else blackOccupied &= ~bit;
+            if(old.getType() != MoveRecorder.KING) 
+                material -= 1L << materialShift(old.getType(), old.isWhite, (bit & Bitboard.DARK_SQUARES) != 0);
+        }
+        board[col][row] = ap;
+        if(old != null) key ^= Zobrist.piece(old.getType(), old.isWhite, Bitboard.toIndex(col, row));
+        if(ap != null) {
+            key ^= Zobrist.piece(ap.getType(), ap.isWhite, Bitboard.toIndex(col, row));
+            bitboards[Bitboard.pieceIndex(ap.getType(), ap.isWhite)] |= bit;
+            if(ap.isWhite) whiteOccupied |= bit;
+            else blackOccupied |= bit;
+            if(ap.getType() != MoveRecorder.KING) 
+                material += 1L << materialShift(ap.getType(), ap.isWhite, (bit & Bitboard.DARK_SQUARES) != 0);
+        }
+    }
+    
+    /**
+     * Recomputes every bitboard from the board
+     */
+    private void rebuildBitboards() {
+        for(int i = 0; i < bitboards.length; i++) {
+            bitboards[i] = 0L;
+        }
+        whiteOccupied = 0L;
+        blackOccupied = 0L;
+        material = 0L;
+        for(int i = 0; i < board.length; i++) {
+            for(int j = 0; j < board[i].length; j++) {
+                AbstractPiece ap = board[i][j];
+                if(ap == null) continue;
+                long bit = Bitboard.bit(i, j);
+                bitboards[Bitboard.pieceIndex(ap.getType(), ap.isWhite)] |= bit;
+                if(ap.isWhite) whiteOccupied |= bit;
+                else blackOccupied |= bit;
+                if(ap.getType() != MoveRecorder.KING) 
+                    material += 1L << materialShift(ap.getType(), ap.isWhite, (bit & Bitboard.DARK_SQUARES) != 0);
+            }
+        }
+    }
+    
+    /**
+     * Determines where a kind of piece is counted in the material signature.<br>
+     * Bishops on light and dark squares are counted apart; kings are never 
+     * counted, so their field holds the bishops on dark squares
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the piece is white
+     * @param onDark whether the piece is on a dark square
+     * @return the shift of the piece's 4-bit field
+     */
+    private static int materialShift(int whichPiece, boolean isWhite, boolean onDark) {
+        if(whichPiece == MoveRecorder.BISHOP && onDark) whichPiece = MoveRecorder.KING;
+        return Bitboard.pieceIndex(whichPiece, isWhite) << 2;
+    }
+    
+    /**
+     * Reads one field of the material signature
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the piece is white
+     * @param onDark whether to count the bishops on dark squares
+     * @return how many of those pieces there are
+     */
+    private int materialField(int whichPiece, boolean isWhite, boolean onDark) {
+        return (int) (material >>> materialShift(whichPiece, isWhite, onDark)) & 15;
+    }
+    
+    /**
+     * Returns the material signature, which is the same for any two 
+     * positions with the same pieces and bishops on the same colors
+     * @return the material signature
+     */
+    public long getMaterialKey() {
+        return material;
+    }
+    
+    /**
+     * Counts one kind of piece
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the pieces are white
+     * @return how many of those pieces are on the board
+     */
+    public int count(int whichPiece, boolean isWhite) {
+        if(whichPiece == MoveRecorder.KING) 
+            return Bitboard.count(getBitboard(MoveRecorder.KING, isWhite));
+        if(whichPiece == MoveRecorder.BISHOP) 
+            return materialField(whichPiece, isWhite, false) + materialField(whichPiece, isWhite, true);
+        return materialField(whichPiece, isWhite, false);
+    }
+    
+    /**
+     * Adds up what one side's pieces are worth, 
+     * counting a pawn as 1, a knight or bishop as 3, a rook as 5 and a queen as 9
+     * @param isWhite whether the side is white
+     * @return how many pawns the side's pieces are worth
+     */
+    public int materialValue(boolean isWhite) {
+        int output = 0;
+        for(int i = MoveRecorder.PAWN; i < MoveRecorder.KING; i++) {
+            output += PIECE_VALUES[i] * count(i, isWhite);
+        }
+        return output;
+    }
+    
+    /**
+     * Returns the bitboard of one kind of piece
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the piece is white
+     * @return the squares where those pieces are
+     */
+    public long getBitboard(int whichPiece, boolean isWhite) {
+        return bitboards[Bitboard.pieceIndex(whichPiece, isWhite)];
+    }
+    
+    /**
+     * Returns the squares occupied by one side
+     * @param isWhite whether the side is white
+     * @return the squares occupied by that side
+     */
+    public long getOccupied(boolean isWhite) {
+        return (isWhite)?whiteOccupied:blackOccupied;
+    }
+    
+    /**
+     * Returns the squares occupied by any piece
+     * @return the squares occupied by any piece
+     */
+    public long getOccupied() {
+        return whiteOccupied | blackOccupied;
+    }
+    
+    /**
+     * Determines whether a square is attacked by one side
+     * @param square the square to check
+     * @param byWhite whether the attacking side is white
+     * @return whether the square is attacked
+     */
+    public boolean isSquareAttacked(String square, boolean byWhite) {
+        if(!isValidSquare(square)) throw new IllegalArgumentException("Invalid square");
+        return isSquareAttacked(Bitboard.toIndex(square), byWhite);
+    }
+    
+    /**
+     * Determines whether a square is attacked by one side.<br>
+     * Looks outward from the square: a knight, king or pawn attacks it 
+     * if the same piece standing on it would attack them back, and a 
+     * slider does if a rook or bishop on the square would reach it.
+     * @param square the index of the square to check
+     * @param byWhite whether the attacking side is white
+     * @return whether the square is attacked
+     */
+    public boolean isSquareAttacked(int square, boolean byWhite) {
+        if((Attacks.knightAttacks(square) & getBitboard(MoveRecorder.KNIGHT, byWhite)) != 0) 
+            return true;
+        if((Attacks.pawnAttacks(square, !byWhite) & getBitboard(MoveRecorder.PAWN, byWhite)) != 0) 
+            return true;
+        if((Attacks.kingAttacks(square) & getBitboard(MoveRecorder.KING, byWhite)) != 0) 
+            return true;
+        long occupied = getOccupied(), queens = getBitboard(MoveRecorder.QUEEN, byWhite);
+        if((Attacks.rookAttacks(square, occupied) 
+                & (getBitboard(MoveRecorder.ROOK, byWhite) | queens)) != 0) 
+            return true;
+        return (Attacks.bishopAttacks(square, occupied) 
+                & (getBitboard(MoveRecorder.BISHOP, byWhite) | queens)) != 0;
+    }
+    
+    /**
+     * Determines whether one side's king is in check
+     * @param isWhite whether the side to check is white (PUN INTENDED)
+     * @return whether the side is in check
+     */
+    public boolean inCheck(boolean isWhite) {
+        int known = (isWhite)?WHITE_CHECK_KNOWN:BLACK_CHECK_KNOWN;
+        int answer = (isWhite)?WHITE_IN_CHECK:BLACK_IN_CHECK;
+        if((getStatus() & known) == 0) {
+            status |= known | ((isSquareAttacked(getKingSquare(isWhite), !isWhite))?answer:0);
+        }
+        return (status & answer) != 0;
+    }
+    
+    /**
+     * Determines whether the king is checkmated
+     * @param isWhite whether the side to check is white (PUN INTENDED)
+     * @return whether the side is checkmated
+     */
+    public boolean checkMated(boolean isWhite) {
+        return inCheck(isWhite) && !hasAnyLegalMove(isWhite);
+    }
+    
+    /**
+     * Determines whether one side is stalemated
+     * @param isWhite whether the side to check is white
+     * @return whether one side is stalemated
+     */
+    public boolean stalemated(boolean isWhite) {
+        return !inCheck(isWhite) && !hasAnyLegalMove(isWhite);
+    }
+    
+    /**
+     * Determines whether either side has insufficient material to checkmate
+     * @return whether either side has insufficient material to checkmate
+     */
+    public boolean insufficientMaterial() {
+        if((material & HEAVY_MATERIAL) != 0) return false;
+        final int N = materialField(MoveRecorder.KNIGHT, true, false), 
+                n = materialField(MoveRecorder.KNIGHT, false, false);
+        if(N > 1 || n > 1) return false;
+        final boolean noBW = materialField(MoveRecorder.BISHOP, true, false) == 0, 
+                noBB = materialField(MoveRecorder.BISHOP, true, true) == 0, noN = N == 0;
+        final boolean nobw = materialField(MoveRecorder.BISHOP, false, false) == 0, 
+                nobb = materialField(MoveRecorder.BISHOP, false, true) == 0, non = n == 0;
+        final boolean whiteBare = noBW && noBB && noN;
+        final boolean blackBare = nobw && nobb && non;
+        return (whiteBare && blackBare) || 
+                (noN && non && ((noBB && nobb) || (noBW && nobw))) ||
+                (blackBare && noN && (noBW || noBB)) || 
+                (blackBare && noBB && noBW && N == 1) || 
+                (whiteBare && non && (nobw || nobb)) || 
+                (whiteBare && nobb && nobw && n == 1);
+    }
+    
+    /**
+     * Determines whether there is threefold repetition
+     * @return whether the current position has occurred three times
+     */
+    public boolean threeFoldRep() {
+        return repetitions() >= 3;
+    }
+    
+    /**
+     * Counts how many times the current position has occurred, 
+     * including now.<br>
+     * Only positions since the last capture, pawn move or loss of 
+     * castling rights are looked at, since none before can repeat
+     * @return how many times the current position has occurred
+     */
+    public int repetitions() {
+        int output = 1;
+        for(int i = ply - 1; i >= Math.max(0, ply - halfmoveClock); i--) {
+            // the position before losing castling rights cannot come back after it
+            if(lostCastlingRights(i)) break;
+            if(((ply - i) & 1) == 0 && undoKeys[i] == key) output++;
+        }
+        return output;
+    }
+    
+    /**
+     * Returns how many moves have been made since the last capture or pawn move
+     * @return the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+    
+    /**
+     * Determines whether 50 moves have been made by each side 
+     * without a capture or a pawn moving
+     * @return whether it is a draw according to this rule
+     */
+    public boolean is50MoveDraw() {
+        return halfmoveClock >= 100;
+    }
+    
+    /**
+     * Determines whether a move on the undo stack lost castling rights.<br>
+     * Captures and pawn moves reset the halfmove clock instead
+     * @param index the index of the move on the undo stack
+     * @return whether the move lost castling rights
+     */
+    private boolean lostCastlingRights(int index) {
+        int rightsBefore = (undoStates[index] >>> 7) & 0xF;
+        int rightsAfter = (index + 1 < ply)?(undoStates[index + 1] >>> 7) & 0xF:castlingRights;
+        return rightsBefore != rightsAfter;
+    }
+    
+    /**
+     * Returns the Zobrist key of the current position
+     * @return the Zobrist key of the current position
+     */
+    public long getKey() {
+        return key;
+    }
+    
+    /**
+     * Determines whether a square is white
+     * @param square the square to check
+     * @return whether the square is white
+     */
+    public static boolean isSquareWhite(String square) {
+        return isSquareWhite(getColumn(square), getRow(square));
+    }
+    
+    /**
+     * Determines whether a square is white
+     * @param col the column of the square to check
+     * @param row the row of the square to check
+     * @return whether the square is white
+     */
+    public static boolean isSquareWhite(int col, int row) {
+        return (col+row)%2==0;
+    }
+    
+    /**
+     * Determines where all of the pieces which fit the criteria
+     * @param whichPiece which piece, determined by the number
+     * @param isWhite whether the piece is white
+     * @return where all of the pieces are
+     */
+    public ArrayList<String> findAll(int whichPiece, boolean isWhite) {
+        if(whichPiece < MoveRecorder.PAWN || whichPiece > MoveRecorder.KING)
+            throw new IllegalArgumentException("Unknown piece type: " + whichPiece);
+        long pieces = getBitboard(whichPiece, isWhite);
+        ArrayList<String> output = new ArrayList<>(Bitboard.count(pieces));
+        while(pieces != 0) {
+            output.add(Bitboard.toSquare(Bitboard.first(pieces)));
+            pieces &= pieces - 1;
+        }
+        return output;
+    }
+    
+    /**
+     * Refinds both kings.
+     */
+    public void resetKingPos() {
+        resetKingPos(true);
+        resetKingPos(false);
+    }
+    
+    /**
+     * Refinds only one king.
+     * @param isWhite whether the king to find again is white
+     */
+    public void resetKingPos(boolean isWhite) {
+        long king = getBitboard(MoveRecorder.KING, isWhite);
+        if(king == 0) {
+            assert false : "Cannot find " + ((isWhite)?"white":"black") + " king";
+            return;
+        }
+        assert Bitboard.count(king) == 1 : "There are two " + ((isWhite)?"white":"black") + " kings?!";
+        kingSquares[(isWhite)?0:1] = Bitboard.first(king);
+    }
+    
+    /**
+     * Determines where one side's king is
+     * @param isWhite whether the king is white
+     * @return the index of the king's square
+     */
+    public int getKingSquare(boolean isWhite) {
+        return kingSquares[(isWhite)?0:1];
+    }
+    
+    /**
+     * Determines which square is open for en passant
+     * @return which square is open for en passant
+     */
+    public String getEnPassant() {
+        return (enPassant == -1)?null:Bitboard.toSquare(enPassant);
+    }
+    
+    /**
+     * Determines which square is open for en passant
+     * @return the index of the square open for en passant, -1 if none
+     */
+    public int getEnPassantIndex() {
+        return enPassant;
+    }
+    
+    /**
+     * Returns which sides can still castle to which side
+     * @return a combination of the *_KINGSIDE and *_QUEENSIDE flags
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+    
+    /**
+     * Determines whether one side can still castle to one side
+     * @param isWhite whether the side is white
+     * @param kingSide whether to castle kingside
+     * @return whether the side still has that castling right
+     */
+    public boolean canCastle(boolean isWhite, boolean kingSide) {
+        int flag = (isWhite)?
+                ((kingSide)?WHITE_KINGSIDE:WHITE_QUEENSIDE):
+                ((kingSide)?BLACK_KINGSIDE:BLACK_QUEENSIDE);
+        return (castlingRights & flag) != 0;
+    }
+
+    /**
+     * Returns the board of AbstractPieces
+     * @return the board of AbstractPieces
+     */
+    public AbstractPiece[][] getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the current player
+     * @return the current player
+     */
+    public boolean getCurrentPlayer() {
+        return playerIsWhite;
+    }
+    
+    /**
+     * DO NOT USE OFTEN <br>
+     * Sets this board to a new state
+     * @param board the board to set to
+     */
+    public void setBoard(AbstractPiece[][] board) {
+        this.board = new AbstractPiece[board.length][board[0].length];
+        for(int i = 0; i < board.length; i++) {
+            for(int j = 0; j < board[i].length; j++) {
+                this.board[i][j] = board[i][j];
+            }
+        }
+        rebuildBitboards();
+        resetKingPos();
+        ply = 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        key = Zobrist.hash(this);
+    }
+    
+    /**
+     * Prints the current state of the chess board.
+     */
+    public void printBoard() {
+        for(int i = 0;i<board[0].length;i++) {
+            for(int j = 0;j<board.length;j++) {
+                AbstractPiece ap = board[j][i];
+                if(ap == null) {
+                    System.out.print(" ");
+                } else System.out.print(ap.getCharRepresentation());
+            }
+            System.out.println();
+        }
+    }
+    
+    /**
+     * Sets up a position written in Forsyth-Edwards Notation.<br>
+     * The moves made so far are forgotten
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public void setFEN(String fen) {
+        parseFEN(fen);
+    }
+    
+    /**
+     * Returns a copy of a position written in Forsyth-Edwards Notation.<br>
+     * The most recently used positions are kept parsed, 
+     * so loading the same ones over and over only copies them
+     * @param fen the position in FEN
+     * @return the position
+     * @throws IllegalArgumentException if the FEN is not valid
+     */
+    public static Position fromFEN(String fen) {
+        return FEN_CACHE.get(fen);
+    }
+    
+    /**
+     * Reads a position written in Forsyth-Edwards Notation into this one.<br>
+     * The whole FEN is checked before anything is changed, 
+     * so this position is left as it was if it is not valid
+     * @param fen the position in FEN
+     */
+    private void parseFEN(String fen) {
+        AbstractPiece[][] parsed = new AbstractPiece[8][8];
+        int[] kings = {-1, -1};
+        long occupied = 0L;
+        int i = 0, col = 0, row = 0;
+        for(; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if(c == '/') {
+                if(col != 8) throw new IllegalArgumentException("Invalid FEN " + fen);
+                col = 0;
+                row++;
+            } else if(c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if(piece == -1 || !isValidSquare(col, row)) throw new IllegalArgumentException("Invalid FEN " + fen);
+                // pawns never stand on the first or last rank
+                if(piece % 6 == MoveRecorder.PAWN && (row == 0 || row == 7)) 
+                    throw new IllegalArgumentException("Invalid FEN " + fen);
+                if(piece % 6 == MoveRecorder.KING) {
+                    // only one king of each color
+                    if(kings[piece / 6] != -1) throw new IllegalArgumentException("Invalid FEN " + fen);
+                    kings[piece / 6] = Bitboard.toIndex(col, row);
+                }
+                occupied |= Bitboard.bit(col, row);
+                parsed[col++][row] = AbstractPiece.of(piece % 6, piece < 6);
+            }
+        }
+        if(row != 7 || col != 8 || i + 2 > fen.length() || kings[0] == -1 || kings[1] == -1) 
+            throw new IllegalArgumentException("Invalid FEN " + fen);
+        
+        // side to move
+        char side = fen.charAt(++i);
+        if((side != 'w' && side != 'b') || (i + 1 < fen.length() && fen.charAt(i + 1) != ' ')) 
+            throw new IllegalArgumentException("Invalid FEN " + fen);
+        boolean isWhite = side == 'w';
+        i += 2;
+        
+        // castling rights
+        int rights = 0, rightsStart = i;
+        for(; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            int flag = FEN_CASTLING.indexOf(fen.charAt(i));
+            // each letter once, or "-" on its own
+            if(flag != -1 && (rights & (1 << flag)) == 0) rights |= 1 << flag;
+            else if(fen.charAt(i) != '-' || i != rightsStart || (i + 1 < fen.length() && fen.charAt(i + 1) != ' ')) 
+                throw new IllegalArgumentException("Invalid FEN " + fen);
+        }
+        i++;
+        
+        // en passant: the square behind a pawn of the other side that just moved two squares
+        int ep = -1;
+        if(i < fen.length() && fen.charAt(i) != '-') {
+            if(i + 2 > fen.length()) throw new IllegalArgumentException("Invalid FEN " + fen);
+            int epCol = fen.charAt(i) - 'a', epRow = '8' - fen.charAt(i + 1);
+            if(!isValidSquare(epCol, epRow) || epRow != ((isWhite)?2:5)) 
+                throw new IllegalArgumentException("Invalid FEN " + fen);
+            AbstractPiece pushed = parsed[epCol][(isWhite)?3:4];
+            if(pushed == null || pushed.getType() != MoveRecorder.PAWN || pushed.isWhite == isWhite 
+                    || parsed[epCol][epRow] != null) 
+                throw new IllegalArgumentException("Invalid FEN " + fen);
+            ep = Bitboard.toIndex(epCol, epRow);
+            i++;
+        }
+        i += 2;
+        
+        // the move counters, if they are there
+        int[] counters = {0, 1};
+        for(int which = 0; which < 2 && i < fen.length(); which++, i++) {
+            int start = i;
+            counters[which] = 0;
+            for(; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                char c = fen.charAt(i);
+                if(c < '0' || c > '9' || counters[which] > MAX_FULLMOVE_NUMBER / 10) 
+                    throw new IllegalArgumentException("Invalid FEN " + fen);
+                counters[which] = counters[which] * 10 + (c - '0');
+            }
+            if(i == start) throw new IllegalArgumentException("Invalid FEN " + fen);
+        }
+        if(i < fen.length()) throw new IllegalArgumentException("Invalid FEN " + fen);
+        // the halfmove clock has to fit in the undo stack
+        if(counters[0] > MAX_HALFMOVE_CLOCK || counters[1] < 1) 
+            throw new IllegalArgumentException("Invalid FEN " + fen);
+        
+        // the side that just moved cannot have left its king in check
+        int otherKing = kings[(isWhite)?1:0];
+        for(int square = 0; square < 64; square++) {
+            AbstractPiece ap = parsed[Bitboard.getColumn(square)][Bitboard.getRow(square)];
+            if(ap == null || ap.isWhite != isWhite) continue;
+            long attacks;
+            switch(ap.getType()) {
+                case MoveRecorder.PAWN:
+                    attacks = Attacks.pawnAttacks(square, isWhite);
+                    break;
+                case MoveRecorder.KNIGHT:
+                    attacks = Attacks.knightAttacks(square);
+                    break;
+                case MoveRecorder.BISHOP:
+                    attacks = Attacks.bishopAttacks(square, occupied);
+                    break;
+                case MoveRecorder.ROOK:
+                    attacks = Attacks.rookAttacks(square, occupied);
+                    break;
+                case MoveRecorder.QUEEN:
+                    attacks = Attacks.queenAttacks(square, occupied);
+                    break;
+                default:
+                    attacks = Attacks.kingAttacks(square);
+                    break;
+            }
+            if((attacks & Bitboard.bit(otherKing)) != 0) throw new IllegalArgumentException("Invalid FEN " + fen);
+        }
+        
+        // rights the pieces could not have kept are dropped, so castling never moves a missing rook
+        for(int corner : new int[]{Bitboard.toIndex(0, 7), Bitboard.toIndex(7, 7), 
+                Bitboard.toIndex(0, 0), Bitboard.toIndex(7, 0)}) {
+            AbstractPiece rook = parsed[Bitboard.getColumn(corner)][Bitboard.getRow(corner)];
+            if(rook == null || rook.getType() != MoveRecorder.ROOK || rook.isWhite != (corner > 31)) 
+                rights &= CASTLING_MASKS[corner];
+        }
+        if(kings[0] != Bitboard.toIndex(4, 7)) rights &= CASTLING_MASKS[Bitboard.toIndex(4, 7)];
+        if(kings[1] != Bitboard.toIndex(4, 0)) rights &= CASTLING_MASKS[Bitboard.toIndex(4, 0)];
+        
+        board = parsed;
+        playerIsWhite = isWhite;
+        castlingRights = rights;
+        enPassant = ep;
+        halfmoveClock = counters[0];
+        fullmoveNumber = counters[1];
+        rebuildBitboards();
+        resetKingPos();
+        ply = 0;
+        key = Zobrist.hash(this);
+    }
+    
+    /**
+     * Writes this position in Forsyth-Edwards Notation
+     * @return the position in FEN
+     */
+    public String toFEN() {
+        return appendFEN(new StringBuilder(90)).toString();
+    }
+    
+    /**
+     * Writes this position in Forsyth-Edwards Notation to the end of 
+     * a StringBuilder, which can be reused for many positions
+     * @param sb the StringBuilder to write to
+     * @return the StringBuilder
+     */
+    public StringBuilder appendFEN(StringBuilder sb) {
+        for(int row = 0; row < 8; row++) {
+            int blanks = 0;
+            for(int col = 0; col < 8; col++) {
+                AbstractPiece ap = board[col][row];
+                if(ap == null) {
+                    blanks++;
+                    continue;
+                }
+                if(blanks != 0) sb.append((char) ('0' + blanks));
+                blanks = 0;
+                sb.append(FEN_PIECES.charAt(Bitboard.pieceIndex(ap.getType(), ap.isWhite)));
+            }
+            if(blanks != 0) sb.append((char) ('0' + blanks));
+            if(row != 7) sb.append('/');
+        }
+        sb.append(' ').append((playerIsWhite)?'w':'b').append(' ');
+        if(castlingRights == 0) sb.append('-');
+        for(int i = 0; i < FEN_CASTLING.length(); i++) {
+            if((castlingRights & (1 << i)) != 0) sb.append(FEN_CASTLING.charAt(i));
+        }
+        sb.append(' ');
+        if(enPassant == -1) sb.append('-');
+        else sb.append((char) ('a' + Bitboard.getColumn(enPassant))).append(8 - Bitboard.getRow(enPassant));
+        return sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+    }
+    
+    /**
+     * Returns the number of the current move
+     * @return the fullmove number, which starts at 1
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+    
+    /**
+     * Returns a miniature of this chess board
+     * @return a miniature of this chess board
+     * @deprecated lists the columns instead of the ranks and leaves out 
+     * everything but the pieces; use toFEN
+     */
+    @Deprecated
+    public String miniFEN() {
+        String output = "";
+        for(AbstractPiece[] col : board) {
+            int blanks = 0;
+            for(AbstractPiece piece : col) {
+                if(piece == null) {
+                    blanks++;
+                } else {
+                    if(blanks != 0) {
+                        output += blanks;
+                    }
+                    blanks = 0;
+                    String rep = piece.getCharRepresentation();
+                    if(piece.isWhite) 
+                        output += rep.toUpperCase(); 
+                    else 
+                        output += rep.toLowerCase();
+                }
+            }
+            output += "/";
+        }
+        return output;
+    }
+}
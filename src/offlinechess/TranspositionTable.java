@@ -0,0 +1,239 @@
+package offlinechess;
+
+import java.util.Arrays;
+
+/**
+ * Remembers what the search found in positions it has seen before.<br>
+ * <br>
+ * The table is one <code>long[]</code>, so entries have no object headers
+ * and the garbage collector never looks inside it. Each bucket holds two
+ * entries: one kept for the deepest search of its positions, and one that
+ * is always replaced. An entry is two longs, the data and the Zobrist key
+ * XORed with the data. A write by one thread that is torn by another's
+ * then fails to match its key and reads as a miss, so many searches can
+ * share a table without locks.
+ * @author Jed Wang
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 3;
+
+    /**
+     * The real score is at least the score, since it failed high
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * The real score is at most the score, since it failed low
+     */
+    public static final int UPPER = 1;
+
+    /**
+     * The size of a table when none is given, in megabytes
+     */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /**
+     * The largest a table can be, in megabytes
+     */
+    public static final int MAX_SIZE_MB = 4096;
+
+    /**
+     * How many longs are in a bucket
+     */
+    private static final int BUCKET_LONGS = 4;
+
+    /**
+     * How many bytes are in a bucket
+     */
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+
+    /**
+     * Where each field is in an entry's data:<br>
+     * bits 0-19 the move, 20-35 the score, 36-43 the depth,
+     * 44-45 the bound and 46-51 the age
+     */
+    private static final int SCORE_SHIFT = 20, DEPTH_SHIFT = 36, BOUND_SHIFT = 44, AGE_SHIFT = 46;
+
+    /**
+     * The masks of the fields of an entry's data
+     */
+    private static final int MOVE_MASK = (1 << 20) - 1, DEPTH_MASK = 0xFF, BOUND_MASK = 3, AGE_MASK = 0x3F;
+
+    /**
+     * The buckets
+     */
+    private final long[] table;
+
+    /**
+     * The index of the last bucket's first long
+     */
+    private final int mask;
+
+    /**
+     * The age of the current search, so entries left from earlier
+     * searches can be told apart and replaced first
+     */
+    private volatile int age = 0;
+
+    /**
+     * Creates a TranspositionTable of the default size
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Creates a TranspositionTable
+     * @param sizeMB how many megabytes the table may use,
+     * which is rounded down to a power of two
+     */
+    public TranspositionTable(int sizeMB) {
+        if(sizeMB < 1 || sizeMB > MAX_SIZE_MB) throw new IllegalArgumentException("Invalid size: " + sizeMB + " MB");
+        long buckets = Long.highestOneBit(((long) sizeMB << 20) / BUCKET_BYTES);
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        mask = table.length - BUCKET_LONGS;
+    }
+
+    /**
+     * Returns how many megabytes the table uses
+     * @return the size of the table in megabytes
+     */
+    public int getSizeMB() {
+        return (int) (((long) table.length * Long.BYTES) >> 20);
+    }
+
+    /**
+     * Forgets every entry
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Starts a new search, so entries from the earlier ones are replaced first
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Looks up a position
+     * @param key the Zobrist key of the position
+     * @return the entry's data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int index = bucket(key);
+        for(int i = index; i < index + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if((table[i] ^ data) == key && data != 0) return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores what was found in a position
+     * @param key the Zobrist key of the position
+     * @param move the best move found, or <code>Move.NONE</code>
+     * @param score the score found
+     * @param depth how deep the position was searched
+     * @param bound EXACT, LOWER or UPPER
+     * @param ply how many moves from the root the position is,
+     * which mate scores are stored apart from
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        if(score >= Engine.MATE - Engine.MAX_PLY) score += ply;
+        else if(score <= -Engine.MATE + Engine.MAX_PLY) score -= ply;
+        int index = bucket(key);
+        long deep = table[index + 1];
+        // the deep entry is kept unless this search went as deep, or it is old
+        if(((table[index] ^ deep) == key && deep != 0) || depth >= depth(deep) || age(deep) != age) {
+            if(move == Move.NONE && (table[index] ^ deep) == key) move = move(deep);
+        } else {
+            index += 2;
+            long data = table[index + 1];
+            if(move == Move.NONE && (table[index] ^ data) == key) move = move(data);
+        }
+        long data = (move & MOVE_MASK)
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) (Math.max(depth, 0) & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * Estimates how full the table is from its first thousand buckets
+     * @return how many of a thousand entries are from the current search
+     */
+    public int hashfull() {
+        int buckets = Math.min(1000, table.length / BUCKET_LONGS), used = 0;
+        for(int i = 0; i < buckets * BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if(data != 0 && age(data) == age) used++;
+        }
+        return used * 1000 / (2 * buckets);
+    }
+
+    /**
+     * Finds the bucket of a position
+     * @param key the Zobrist key of the position
+     * @return the index of the bucket's first long
+     */
+    private int bucket(long key) {
+        return ((int) (key >>> 32) * BUCKET_LONGS) & mask;
+    }
+
+    /**
+     * Returns the best move of an entry
+     * @param data the entry's data
+     * @return the best move (See: <code>Move</code>), or <code>Move.NONE</code>
+     */
+    public static int move(long data) {
+        return (int) data & MOVE_MASK;
+    }
+
+    /**
+     * Returns the score of an entry
+     * @param data the entry's data
+     * @param ply how many moves from the root the position is
+     * @return the score, with mates counted from the root
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> SCORE_SHIFT);
+        if(score >= Engine.MATE - Engine.MAX_PLY) return score - ply;
+        if(score <= -Engine.MATE + Engine.MAX_PLY) return score + ply;
+        return score;
+    }
+
+    /**
+     * Returns how deep an entry's position was searched
+     * @param data the entry's data
+     * @return how deep the position was searched
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /**
+     * Returns the bound of an entry's score
+     * @param data the entry's data
+     * @return EXACT, LOWER or UPPER
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    /**
+     * Returns the age of an entry
+     * @param data the entry's data
+     * @return the age of the search that stored it
+     */
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+}
@@ -0,0 +1,128 @@
+package offlinechess;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing.<br>
+ * <br>
+ * A position's key is the XOR of one key for every piece on its square,
+ * the castling rights, the en passant file and the side to move, so a
+ * move only has to XOR in and out what it changes.
+ * @author Jed Wang
+ */
+public final class Zobrist {
+
+    /**
+     * The keys for each piece on each square, by
+     * <code>Bitboard.pieceIndex * 64 + square</code>
+     */
+    private static final long[] PIECES = new long[12 * 64];
+
+    /**
+     * The keys for each combination of castling rights
+     */
+    private static final long[] CASTLING = new long[16];
+
+    /**
+     * The keys for each en passant file
+     */
+    private static final long[] EN_PASSANT = new long[8];
+
+    /**
+     * The key XORed in when black is to move
+     */
+    private static final long BLACK_TO_MOVE;
+
+    /**
+     * static init
+     */
+    static {
+        // a fixed seed, so keys are the same on every run
+        Random random = new Random(20171207L);
+        for(int i = 0; i < PIECES.length; i++) {
+            PIECES[i] = random.nextLong();
+        }
+        // no rights XORs in nothing, so the other keys can be combined
+        long[] rights = new long[4];
+        for(int i = 0; i < rights.length; i++) {
+            rights[i] = random.nextLong();
+        }
+        for(int i = 0; i < CASTLING.length; i++) {
+            for(int j = 0; j < rights.length; j++) {
+                if((i & (1 << j)) != 0) CASTLING[i] ^= rights[j];
+            }
+        }
+        for(int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    /**
+     * No instantiation.
+     */
+    private Zobrist() {}
+
+    /**
+     * Returns the key of a piece on a square
+     * @param whichPiece which piece, determined by the number (See: <code>MoveRecorder</code>)
+     * @param isWhite whether the piece is white
+     * @param square the index of the square
+     * @return the key of the piece on the square
+     */
+    public static long piece(int whichPiece, boolean isWhite, int square) {
+        return PIECES[(Bitboard.pieceIndex(whichPiece, isWhite) << 6) | square];
+    }
+
+    /**
+     * Returns the key of some castling rights
+     * @param rights a combination of the Position *_KINGSIDE and *_QUEENSIDE flags
+     * @return the key of the castling rights
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Returns the key of the en passant square.<br>
+     * It only counts when a pawn of the side to move could capture there,
+     * since otherwise the same moves are possible as without it
+     * @param cb the current state of the chess game
+     * @return the key of the en passant square, or 0 if there is none
+     */
+    public static long enPassant(Position cb) {
+        int square = cb.getEnPassantIndex();
+        if(square == -1) return 0L;
+        boolean isWhite = cb.getCurrentPlayer();
+        if((Attacks.pawnAttacks(square, !isWhite)
+                & cb.getBitboard(MoveRecorder.PAWN, isWhite)) == 0) return 0L;
+        return EN_PASSANT[Bitboard.getColumn(square)];
+    }
+
+    /**
+     * Returns the key of the side to move
+     * @param isWhite whether white is to move
+     * @return the key of the side to move
+     */
+    public static long side(boolean isWhite) {
+        return (isWhite)?0L:BLACK_TO_MOVE;
+    }
+
+    /**
+     * Computes the key of a position from scratch
+     * @param cb the current state of the chess game
+     * @return the key of the position
+     */
+    public static long hash(Position cb) {
+        long output = 0L;
+        long pieces = cb.getOccupied();
+        while(pieces != 0) {
+            int square = Bitboard.first(pieces);
+            pieces &= pieces - 1;
+            AbstractPiece ap = cb.getPiece(square);
+            output ^= piece(ap.getType(), ap.isWhite, square);
+        }
+        return output ^ castling(cb.getCastlingRights()) ^ enPassant(cb)
+                ^ side(cb.getCurrentPlayer());
+    }
+}